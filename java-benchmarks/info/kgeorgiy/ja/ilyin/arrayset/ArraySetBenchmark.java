@@ -0,0 +1,250 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import info.kgeorgiy.ja.ilyin.benchmark.Benchmark;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Benchmarks of {@link ArraySet} against {@link TreeSet} and {@link ConcurrentSkipListSet}:
+ * construction from unsorted collection, {@code contains}, {@code floor}/{@code ceiling},
+ * creation of range views and ascending and descending iteration.
+ * Sets of {@code Integer}, {@code String} and composite keys with custom comparator
+ * of sizes from 100 to {@code -maxSize} are measured, about half of queried keys are absent.
+ * Lookups with every {@link SearchMode} are measured on evenly spread and on exponentially growing {@code Long} keys,
+ * with average number of probes of binary and interpolation search.
+ *
+ * @author Yaroslav Ilin
+ */
+public class ArraySetBenchmark {
+    private static final int QUERIES = 1 << 10;
+
+    private final Benchmark benchmark;
+    private final int maxSize;
+
+    private ArraySetBenchmark(Benchmark benchmark, int maxSize) {
+        this.benchmark = benchmark;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Run benchmarks.
+     *
+     * @param args common {@link Benchmark} options and [-maxSize N]
+     * @throws Exception if benchmark failed
+     */
+    public static void main(String[] args) throws Exception {
+        Benchmark benchmark = new Benchmark();
+        String[] rest = benchmark.parse(args);
+        int maxSize = 10_000_000;
+        for (int i = 0; i < rest.length; i++) {
+            if ("-maxSize".equals(rest[i])) {
+                maxSize = Integer.parseInt(Benchmark.value(rest, ++i));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + rest[i]);
+            }
+        }
+        new ArraySetBenchmark(benchmark, maxSize).run();
+    }
+
+    private void run() throws Exception {
+        for (int size = 100; size <= maxSize; size *= 10) {
+            // keys are even numbers, so odd queries are absent
+            run("integer", size, i -> i, null);
+            run("string", size, i -> String.format("%010d", i), null);
+            run("custom", size, i -> new Key(i / 1000, i % 1000), Key.ORDER);
+        }
+        for (int size = 1000; size <= maxSize; size *= 10) {
+            searchModes("uniform", size, random -> random.nextLong() >>> 1);
+            searchModes("exponential", size, random -> (long) Math.pow(2, 62 * random.nextDouble()));
+        }
+    }
+
+    private void searchModes(String distribution, int size, ToLongFunction<Random> key) throws Exception {
+        Random random = new Random(size);
+        List<Long> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(key.applyAsLong(random));
+        }
+        List<Long> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(random.nextBoolean() ? values.get(random.nextInt(size)) : key.applyAsLong(random));
+        }
+        String suffix = "/" + distribution + "/" + size;
+        for (SearchMode mode : SearchMode.values()) {
+            Lazy<ArraySet<Long>> lazy = new Lazy<>(() -> new ArraySet<>(values, null, mode));
+            benchmark.measure("search" + suffix + "/" + mode, "ops", () -> {
+                ArraySet<Long> set = lazy.get();
+                int found = 0;
+                for (int i = 0; i < QUERIES; i++) {
+                    found += set.contains(queries.get(i)) ? 1 : 0;
+                }
+                Benchmark.consume(found);
+                return QUERIES;
+            });
+        }
+
+        List<Long> sorted = new ArrayList<>(new TreeSet<>(values));
+        CountingList<Long> counting = new CountingList<>(sorted);
+        for (Long query : queries) {
+            Collections.binarySearch(counting, query);
+        }
+        benchmark.report("probes" + suffix + "/" + SearchMode.BINARY, "probes/op", (double) counting.probes / QUERIES);
+        InterpolationIndex<Long> index = InterpolationIndex.of(sorted, null);
+        long probes = 0;
+        for (Long query : queries) {
+            probes += index.probes(query);
+        }
+        benchmark.report("probes" + suffix + "/" + SearchMode.INTERPOLATION, "probes/op", (double) probes / QUERIES);
+    }
+
+    private <T> void run(String kind, int size, IntFunction<T> key, Comparator<? super T> comparator) throws Exception {
+        Random random = new Random(size);
+        List<T> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(key.apply(2 * i));
+        }
+        Collections.shuffle(values, random);
+        List<T> queries = new ArrayList<>(QUERIES + 1);
+        for (int i = 0; i <= QUERIES; i++) {
+            queries.add(key.apply(random.nextInt(2 * size)));
+        }
+
+        Map<String, Function<List<T>, NavigableSet<T>>> factories = new LinkedHashMap<>();
+        factories.put("ArraySet", list -> new ArraySet<>(list, comparator));
+        factories.put("TreeSet", list -> {
+            TreeSet<T> set = new TreeSet<>(comparator);
+            set.addAll(list);
+            return set;
+        });
+        factories.put("ConcurrentSkipListSet", list -> {
+            ConcurrentSkipListSet<T> set = new ConcurrentSkipListSet<>(comparator);
+            set.addAll(list);
+            return set;
+        });
+        for (Map.Entry<String, Function<List<T>, NavigableSet<T>>> factory : factories.entrySet()) {
+            String suffix = "/" + kind + "/" + size + "/" + factory.getKey();
+            benchmark.measure("build" + suffix, "elements", () -> {
+                Benchmark.consume(factory.getValue().apply(values));
+                return size;
+            });
+            measure(suffix, new Lazy<>(() -> factory.getValue().apply(values)), comparator, queries);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void measure(String suffix, Lazy<NavigableSet<T>> lazy, Comparator<? super T> comparator, List<T> queries) throws Exception {
+        benchmark.measure("contains" + suffix, "ops", () -> {
+            NavigableSet<T> set = lazy.get();
+            int found = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                found += set.contains(queries.get(i)) ? 1 : 0;
+            }
+            Benchmark.consume(found);
+            return QUERIES;
+        });
+        benchmark.measure("floorCeiling" + suffix, "ops", () -> {
+            NavigableSet<T> set = lazy.get();
+            int found = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                found += set.floor(queries.get(i)) != null ? 1 : 0;
+                found += set.ceiling(queries.get(i)) != null ? 1 : 0;
+            }
+            Benchmark.consume(found);
+            return 2 * QUERIES;
+        });
+        benchmark.measure("subSet" + suffix, "ops", () -> {
+            NavigableSet<T> set = lazy.get();
+            int empty = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                T a = queries.get(i);
+                T b = queries.get(i + 1);
+                boolean ordered = comparator == null ? ((Comparable<? super T>) a).compareTo(b) <= 0 : comparator.compare(a, b) <= 0;
+                empty += set.subSet(ordered ? a : b, true, ordered ? b : a, false).isEmpty() ? 1 : 0;
+            }
+            Benchmark.consume(empty);
+            return QUERIES;
+        });
+        benchmark.measure("iterate" + suffix, "elements", () -> {
+            NavigableSet<T> set = lazy.get();
+            int count = 0;
+            for (T value : set) {
+                count += value != null ? 1 : 0;
+            }
+            Benchmark.consume(count);
+            return set.size();
+        });
+        benchmark.measure("iterateDescending" + suffix, "elements", () -> {
+            NavigableSet<T> set = lazy.get();
+            int count = 0;
+            for (Iterator<T> it = set.descendingIterator(); it.hasNext(); ) {
+                count += it.next() != null ? 1 : 0;
+            }
+            Benchmark.consume(count);
+            return set.size();
+        });
+    }
+
+    /**
+     * List counting reads of elements.
+     */
+    private static class CountingList<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> list;
+        private long probes;
+
+        private CountingList(List<T> list) {
+            this.list = list;
+        }
+
+        @Override
+        public T get(int index) {
+            probes++;
+            return list.get(index);
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+    }
+
+    /**
+     * Value computed on first access, so sets are not built for benchmarks skipped by filter.
+     */
+    private static class Lazy<T> {
+        private Supplier<T> supplier;
+        private T value;
+
+        private Lazy(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        private T get() {
+            if (supplier != null) {
+                value = supplier.get();
+                supplier = null;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Composite key ordered by comparator, not comparable itself.
+     */
+    private static class Key {
+        private static final Comparator<Key> ORDER = Comparator.<Key>comparingInt(key -> key.major)
+                .thenComparingInt(key -> key.minor);
+
+        private final int major;
+        private final int minor;
+
+        private Key(int major, int minor) {
+            this.major = major;
+            this.minor = minor;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package info.kgeorgiy.ja.ilyin.benchmark;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal benchmark harness for running without external dependencies.
+ * Every benchmark is run for a number of warmup and measured iterations of fixed duration,
+ * throughput of measured iterations is reported.
+ *
+ * @author Yaroslav Ilin
+ */
+public class Benchmark {
+    private static final String USAGE = "[-warmup N] [-iterations N] [-time ms] [-filter regex]";
+
+    private static long sink;
+
+    private int warmups = 3;
+    private int iterations = 5;
+    private long iterationNanos = 1_000_000_000L;
+    private Pattern filter = Pattern.compile(".*");
+
+    /**
+     * Body of benchmark.
+     */
+    @FunctionalInterface
+    public interface Body {
+        /**
+         * Run one invocation.
+         *
+         * @return number of processed units (bytes, files, lines, operations)
+         * @throws Exception if benchmark failed
+         */
+        long run() throws Exception;
+    }
+
+    /**
+     * Keep value alive, so computation of it is not eliminated.
+     *
+     * @param value result of computation
+     */
+    public static void consume(long value) {
+        sink += value;
+    }
+
+    /**
+     * Keep object alive, so computation of it is not eliminated.
+     *
+     * @param value result of computation
+     */
+    public static void consume(Object value) {
+        sink += System.identityHashCode(value);
+    }
+
+    /**
+     * Parse common options and return other arguments.
+     *
+     * @param args command line arguments
+     * @return arguments not recognized as common options
+     */
+    public String[] parse(String[] args) {
+        if (args == null || Arrays.stream(args).anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Expected: " + USAGE);
+        }
+        String[] rest = new String[args.length];
+        int size = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-warmup":
+                    warmups = Integer.parseInt(value(args, ++i));
+                    break;
+                case "-iterations":
+                    iterations = Integer.parseInt(value(args, ++i));
+                    break;
+                case "-time":
+                    iterationNanos = Long.parseLong(value(args, ++i)) * 1_000_000L;
+                    break;
+                case "-filter":
+                    filter = Pattern.compile(value(args, ++i));
+                    break;
+                default:
+                    rest[size++] = args[i];
+            }
+        }
+        return Arrays.copyOf(rest, size);
+    }
+
+    /**
+     * Value of option.
+     *
+     * @param args command line arguments
+     * @param ind  index of value
+     * @return value
+     */
+    public static String value(String[] args, int ind) {
+        if (ind >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + args[ind - 1] + ", expected: " + USAGE);
+        }
+        return args[ind];
+    }
+
+    private double iteration(Body body) throws Exception {
+        long units = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            units += body.run();
+        } while ((elapsed = System.nanoTime() - start) < iterationNanos);
+        return units * 1e9 / elapsed;
+    }
+
+    /**
+     * Run benchmark if its name matches filter and print throughput.
+     *
+     * @param name name of benchmark
+     * @param unit name of processed unit
+     * @param body benchmark
+     * @throws Exception if benchmark failed
+     */
+    public void measure(String name, String unit, Body body) throws Exception {
+        if (!filter.matcher(name).find()) {
+            return;
+        }
+        for (int i = 0; i < warmups; i++) {
+            iteration(body);
+        }
+        double[] results = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            results[i] = iteration(body);
+        }
+        double mean = Arrays.stream(results).average().orElse(0);
+        double deviation = Math.sqrt(Arrays.stream(results).map(r -> (r - mean) * (r - mean)).sum()
+                / Math.max(1, iterations - 1));
+        System.out.println(String.format(Locale.ROOT, "%-48s %14s +- %-12s %s/s",
+                name, scaled(mean), scaled(deviation), unit));
+    }
+
+    /**
+     * Print computed value if name matches filter.
+     *
+     * @param name  name of value
+     * @param unit  unit of value
+     * @param value value
+     */
+    public void report(String name, String unit, double value) {
+        if (filter.matcher(name).find()) {
+            System.out.println(String.format(Locale.ROOT, "%-48s %14s    %-12s %s", name, scaled(value), "", unit));
+        }
+    }
+
+    private static String scaled(double value) {
+        String[] prefixes = {"", "K", "M", "G", "T"};
+        int i = 0;
+        while (Math.abs(value) >= 1000 && i + 1 < prefixes.length) {
+            value /= 1000;
+            i++;
+        }
+        return String.format(Locale.ROOT, "%.3f%s", value, prefixes[i]);
+    }
+}
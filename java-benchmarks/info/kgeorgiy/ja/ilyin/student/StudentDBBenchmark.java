@@ -0,0 +1,150 @@
+package info.kgeorgiy.ja.ilyin.student;
+
+import info.kgeorgiy.ja.ilyin.benchmark.Benchmark;
+import info.kgeorgiy.java.advanced.student.Group;
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks of {@link StudentDB} grouping queries on generated roster of {@code -students} students
+ * against grouping into map of lists with sorting of every group, as {@link StudentDB} did before,
+ * queries by indices of list and of set with and without {@link IndexedStudentDB}
+ * and counting, search and sort queries of {@link StudentDB}, {@link ParallelStudentDB} with {@code -threads} threads
+ * and {@link ColumnarStudentDB}.
+ *
+ * @author Yaroslav Ilin
+ */
+public class StudentDBBenchmark {
+    private static final int NAMES = 1000;
+
+    private final Benchmark benchmark;
+    private final List<Student> students;
+    private final int threads;
+
+    private StudentDBBenchmark(Benchmark benchmark, List<Student> students, int threads) {
+        this.benchmark = benchmark;
+        this.students = students;
+        this.threads = threads;
+    }
+
+    /**
+     * Run benchmarks.
+     *
+     * @param args common {@link Benchmark} options and [-students N] [-threads N]
+     * @throws Exception if benchmark failed
+     */
+    public static void main(String[] args) throws Exception {
+        Benchmark benchmark = new Benchmark();
+        String[] rest = benchmark.parse(args);
+        int size = 1_000_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < rest.length; i++) {
+            switch (rest[i]) {
+                case "-students":
+                    size = Integer.parseInt(Benchmark.value(rest, ++i));
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(Benchmark.value(rest, ++i));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + rest[i]);
+            }
+        }
+        new StudentDBBenchmark(benchmark, generate(size, new Random(2021)), threads).run();
+    }
+
+    static List<Student> generate(int size, Random random) {
+        GroupName[] groups = GroupName.values();
+        List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(new Student(
+                    random.nextInt(size),
+                    "First" + random.nextInt(NAMES),
+                    "Last" + random.nextInt(NAMES),
+                    groups[random.nextInt(groups.length)]));
+        }
+        return students;
+    }
+
+    private void run() throws Exception {
+        StudentDB db = new StudentDB();
+        int size = students.size();
+        benchmark.measure("getGroupsByName/" + size, "students", () -> {
+            Benchmark.consume(db.getGroupsByName(students));
+            return size;
+        });
+        benchmark.measure("getGroupsByName/" + size + "/groupingBy", "students", () -> {
+            Benchmark.consume(groupingBy(students, StudentDB.ORDERED_BY_NAME));
+            return size;
+        });
+        benchmark.measure("getGroupsById/" + size, "students", () -> {
+            Benchmark.consume(db.getGroupsById(students));
+            return size;
+        });
+        benchmark.measure("getGroupsById/" + size + "/groupingBy", "students", () -> {
+            Benchmark.consume(groupingBy(students, Comparator.comparingInt(Student::getId)));
+            return size;
+        });
+
+        int[] indices = {0, size / 2, size - 1};
+        Set<Student> set = new LinkedHashSet<>(students);
+        benchmark.measure("getFirstNamesByIndex/" + size + "/list", "ops", () -> {
+            Benchmark.consume(db.getFirstNames(students, indices));
+            return 1;
+        });
+        benchmark.measure("getFirstNamesByIndex/" + size + "/set", "ops", () -> {
+            Benchmark.consume(db.getFirstNames(set, indices));
+            return 1;
+        });
+        StudentDB indexed = new IndexedStudentDB(set);
+        benchmark.measure("getFirstNamesByIndex/" + size + "/set/indexed", "ops", () -> {
+            Benchmark.consume(indexed.getFirstNames(set, indices));
+            return 1;
+        });
+
+        Map<String, StudentDB> queries = new LinkedHashMap<>();
+        queries.put("", db);
+        queries.put("/threads-" + threads, new ParallelStudentDB(threads));
+        queries.put("/columnar", new ColumnarStudentDB(students));
+        for (Map.Entry<String, StudentDB> entry : queries.entrySet()) {
+            String suffix = "/" + size + entry.getKey();
+            StudentDB query = entry.getValue();
+            benchmark.measure("getLargestGroup" + suffix, "students", () -> {
+                Benchmark.consume(query.getLargestGroup(students));
+                return size;
+            });
+            benchmark.measure("getLargestGroupFirstName" + suffix, "students", () -> {
+                Benchmark.consume(query.getLargestGroupFirstName(students));
+                return size;
+            });
+            benchmark.measure("getMostPopularName" + suffix, "students", () -> {
+                Benchmark.consume(query.getMostPopularName(students));
+                return size;
+            });
+            benchmark.measure("getFullNames" + suffix, "students", () -> {
+                Benchmark.consume(query.getFullNames(students));
+                return size;
+            });
+            benchmark.measure("findStudentsByLastName" + suffix, "students", () -> {
+                Benchmark.consume(query.findStudentsByLastName(students, "Last0"));
+                return size;
+            });
+            benchmark.measure("sortStudentsByName" + suffix, "students", () -> {
+                Benchmark.consume(query.sortStudentsByName(students));
+                return size;
+            });
+        }
+    }
+
+    private static List<Group> groupingBy(Collection<Student> students, Comparator<Student> comparator) {
+        return students.stream()
+                .collect(Collectors.groupingBy(Student::getGroup))
+                .entrySet().stream()
+                .map(x -> new Group(x.getKey(), x.getValue().stream().sorted(comparator).collect(Collectors.toList())))
+                .sorted(Comparator.comparing(Group::getName))
+                .collect(Collectors.toList());
+    }
+}
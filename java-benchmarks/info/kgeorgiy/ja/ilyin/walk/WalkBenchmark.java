@@ -0,0 +1,265 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import info.kgeorgiy.ja.ilyin.benchmark.Benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks of walk hot paths on synthetic fixtures generated into temporary directory:
+ * hashing of single files from 0 B to {@code -maxSize}, traversal of tree of small files,
+ * traversal with {@link PrefetchingWalker} over file system with injected latency,
+ * output encoding and end-to-end {@link BaseWalk#run}.
+ *
+ * @author Yaroslav Ilin
+ */
+public class WalkBenchmark {
+    private static final long[] SIZES = {0, 1 << 10, 64 << 10, 1 << 20, 64 << 20, 1 << 30};
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final int LINES = 100_000;
+
+    private final Benchmark benchmark;
+    private final Path root;
+    private final long maxSize;
+    private final int files;
+    private final int threads;
+    private final long latency;
+
+    private WalkBenchmark(Benchmark benchmark, Path root, long maxSize, int files, int threads, long latency) {
+        this.benchmark = benchmark;
+        this.root = root;
+        this.maxSize = maxSize;
+        this.files = files;
+        this.threads = threads;
+        this.latency = latency;
+    }
+
+    /**
+     * Run benchmarks.
+     *
+     * @param args common {@link Benchmark} options and [-maxSize bytes] [-files N] [-threads N] [-latency micros]
+     * @throws Exception if benchmark failed
+     */
+    public static void main(String[] args) throws Exception {
+        Benchmark benchmark = new Benchmark();
+        String[] rest = benchmark.parse(args);
+        long maxSize = 1 << 30;
+        int files = 10_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long latency = 200;
+        for (int i = 0; i < rest.length; i++) {
+            switch (rest[i]) {
+                case "-maxSize":
+                    maxSize = Long.parseLong(Benchmark.value(rest, ++i));
+                    break;
+                case "-files":
+                    files = Integer.parseInt(Benchmark.value(rest, ++i));
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(Benchmark.value(rest, ++i));
+                    break;
+                case "-latency":
+                    latency = Long.parseLong(Benchmark.value(rest, ++i));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + rest[i]);
+            }
+        }
+        Path root = Files.createTempDirectory("walk-benchmark");
+        try {
+            new WalkBenchmark(benchmark, root, maxSize, files, threads, latency).run();
+        } finally {
+            delete(root);
+        }
+    }
+
+    private void run() throws Exception {
+        hashing();
+        Path tree = generateTree(root.resolve("tree"));
+        traversal(tree);
+        output();
+        endToEnd(tree);
+    }
+
+    private void hashing() throws Exception {
+        Random random = new Random(239);
+        for (long size : SIZES) {
+            if (size > maxSize) {
+                continue;
+            }
+            Path file = root.resolve("file-" + size);
+            generate(file, size, random);
+            // empty file is measured in files per second
+            String unit = size == 0 ? "files" : "B";
+            benchmark.measure("pjwHash/" + size, unit, () -> {
+                Benchmark.consume(WalkVisitor.pjwHash(file));
+                return Math.max(size, 1);
+            });
+            for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+                HashFunction function = algorithm.get();
+                WalkMetrics metrics = new WalkMetrics();
+                benchmark.measure("hash/" + algorithm.name().toLowerCase() + "/" + size, unit, () -> {
+                    Benchmark.consume(FileHashEngine.hash(file, function, metrics));
+                    return Math.max(size, 1);
+                });
+            }
+            FileHasher tree = new FileHasher(HashAlgorithm.XXHASH64, null, ForkJoinPool.commonPool(), new WalkMetrics());
+            benchmark.measure("treeHash/xxhash64/" + size, unit, () -> {
+                Benchmark.consume(tree.hash(file));
+                return Math.max(size, 1);
+            });
+            Files.delete(file);
+        }
+    }
+
+    private void traversal(Path tree) throws Exception {
+        benchmark.measure("walkFileTree/" + files, "files", () -> {
+            CountingVisitor visitor = new CountingVisitor();
+            Files.walkFileTree(tree, visitor);
+            return visitor.visited;
+        });
+        PrefetchingWalker.FileTreeAccess slow = new SlowAccess(latency);
+        String name = files + "/latency-" + latency + "us";
+        try (PrefetchingWalker walker = new PrefetchingWalker(slow, 1)) {
+            benchmark.measure("slowWalk/" + name, "files", () -> {
+                CountingVisitor visitor = new CountingVisitor();
+                walker.walk(tree, visitor);
+                return visitor.visited;
+            });
+        }
+        try (PrefetchingWalker walker = new PrefetchingWalker(slow, threads * 4)) {
+            benchmark.measure("slowWalk/" + name + "/prefetch-" + threads * 4, "files", () -> {
+                CountingVisitor visitor = new CountingVisitor();
+                walker.walk(tree, visitor);
+                return visitor.visited;
+            });
+        }
+    }
+
+    private static class CountingVisitor extends SimpleFileVisitor<Path> {
+        private long visited;
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            visited++;
+            return FileVisitResult.CONTINUE;
+        }
+    }
+
+    /**
+     * Local file system with fixed delay of every listing and attributes request,
+     * similar to network file system.
+     */
+    private static class SlowAccess implements PrefetchingWalker.FileTreeAccess {
+        private final long latency;
+
+        private SlowAccess(long latency) {
+            this.latency = latency;
+        }
+
+        private void sleep() throws IOException {
+            try {
+                TimeUnit.MICROSECONDS.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        @Override
+        public DirectoryStream<Path> list(Path directory) throws IOException {
+            sleep();
+            return FILES.list(directory);
+        }
+
+        @Override
+        public BasicFileAttributes attributes(Path file) throws IOException {
+            sleep();
+            return FILES.attributes(file);
+        }
+    }
+
+    private void output() throws Exception {
+        Path output = root.resolve("lines.txt");
+        String[] paths = new String[1024];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = root.resolve("tree").resolve("dir" + i).resolve("file" + i).toString();
+        }
+        benchmark.measure("output/format", "lines", () -> {
+            try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+                for (int i = 0; i < LINES; i++) {
+                    writer.write(String.format("%016x %s%n", i * 0x9E3779B97F4A7C15L, paths[i & 1023]));
+                }
+            }
+            return LINES;
+        });
+        benchmark.measure("output/hashLineWriter", "lines", () -> {
+            try (HashLineWriter writer = new HashLineWriter(FileChannel.open(output,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+                for (int i = 0; i < LINES; i++) {
+                    writer.write(i * 0x9E3779B97F4A7C15L, paths[i & 1023]);
+                }
+            }
+            return LINES;
+        });
+        Files.deleteIfExists(output);
+    }
+
+    private void endToEnd(Path tree) throws Exception {
+        Path input = root.resolve("input.txt");
+        Path output = root.resolve("output.txt");
+        Files.write(input, List.of(tree.toString()));
+        benchmark.measure("recursiveWalk/" + files, "files", () -> {
+            BaseWalk.run(new String[]{input.toString(), output.toString()}, true);
+            return files;
+        });
+        benchmark.measure("recursiveWalk/" + files + "/threads-" + threads, "files", () -> {
+            BaseWalk.run(new String[]{input.toString(), output.toString(), "-threads", String.valueOf(threads)}, true);
+            return files;
+        });
+    }
+
+    private Path generateTree(Path tree) throws IOException {
+        Random random = new Random(2021);
+        for (int i = 0; i < files; i++) {
+            Path directory = tree.resolve("dir" + i / FILES_PER_DIRECTORY);
+            if (i % FILES_PER_DIRECTORY == 0) {
+                Files.createDirectories(directory);
+            }
+            generate(directory.resolve("file" + i), random.nextInt(4096), random);
+        }
+        return tree;
+    }
+
+    private static void generate(Path file, long size, Random random) throws IOException {
+        byte[] block = new byte[(int) Math.min(size, 1 << 20)];
+        random.nextBytes(block);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (long written = 0; written < size; ) {
+                ByteBuffer buffer = ByteBuffer.wrap(block, 0, (int) Math.min(block.length, size - written));
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package info.kgeorgiy.ja.ilyin.arrayset;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * @author Yaroslav Ilin
  */
 
 public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
+    // views share sorted list and its index, set is range [from, to) of it in direct or reversed order
     private final List<T> data;
     private final Comparator<? super T> comparator;
+    private final SearchIndex<T> index;
+    private final int from;
+    private final int to;
+    private final boolean descending;
 
     public ArraySet() {
         this(List.of(), null);
@@ -23,44 +29,121 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
     }
 
     public ArraySet(final Collection<? extends T> collection, final Comparator<? super T> comparator) {
-        final TreeSet<T> tmp = new TreeSet<>(comparator);
-        tmp.addAll(collection);
-        this.data = new ArrayList<>(tmp);
+        this(collection, comparator, SearchMode.BINARY);
+    }
+
+    public ArraySet(final Collection<? extends T> collection, final Comparator<? super T> comparator, final SearchMode mode) {
+        this.data = sorted(collection, comparator);
         this.comparator = comparator;
+        this.index = mode.index(data, comparator);
+        this.from = 0;
+        this.to = data.size();
+        this.descending = false;
     }
 
     private ArraySet(final List<T> list, final Comparator<? super T> comparator) {
+        this(list, comparator, null, 0, list.size(), false);
+    }
+
+    private ArraySet(final List<T> list, final Comparator<? super T> comparator, final SearchIndex<T> index,
+                     final int from, final int to, final boolean descending) {
         this.comparator = comparator;
         this.data = list;
+        this.index = index;
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+    }
+
+    /**
+     * Set over list which is already sorted by comparator and has no equal elements, list is not copied.
+     */
+    static <T> ArraySet<T> ofSorted(final List<T> sorted, final Comparator<? super T> comparator) {
+        return new ArraySet<>(sorted, comparator);
+    }
+
+    /**
+     * Elements of set in its order, list is not copied.
+     */
+    List<T> asList() {
+        return new ViewList();
+    }
+
+    // sorted input is copied and deduplicated in one pass, TreeSet is built only for unsorted one
+    private static <T> List<T> sorted(final Collection<? extends T> collection, final Comparator<? super T> comparator) {
+        if (collection instanceof SortedSet && Objects.equals(((SortedSet<?>) collection).comparator(), comparator)) {
+            return new ArrayList<>(collection);
+        }
+        final List<T> list = new ArrayList<>(collection);
+        int size = 0;
+        for (final T element : list) {
+            final int cmp = size == 0 ? compare(comparator, element, element) : compare(comparator, list.get(size - 1), element);
+            if (cmp > 0) {
+                final TreeSet<T> tmp = new TreeSet<>(comparator);
+                tmp.addAll(collection);
+                return new ArrayList<>(tmp);
+            }
+            if (cmp < 0 || size == 0) {
+                list.set(size++, element);
+            }
+        }
+        list.subList(size, list.size()).clear();
+        return list;
+    }
+
+    // index in data in contract of Collections.binarySearch, insertion point is in [from, to]
+    private int search(final T key) {
+        if (index == null) {
+            int left = from;
+            int right = to - 1;
+            while (left <= right) {
+                final int middle = (left + right) >>> 1;
+                final int cmp = compare(data.get(middle), key);
+                if (cmp < 0) {
+                    left = middle + 1;
+                } else if (cmp > 0) {
+                    right = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -left - 1;
+        }
+        final int found = index.search(key);
+        final int position = found >= 0 ? found : -found - 1;
+        if (found >= 0 && from <= position && position < to) {
+            return position;
+        }
+        return -Math.max(from, Math.min(position, to)) - 1;
     }
 
     private int findInd(final T key, final int ifFind, final int notFind) {
-        final int index = Collections.binarySearch(data, key, comparator);
+        final int index = search(key);
         return index >= 0 ? index + ifFind : -index - 1 + notFind;
     }
 
     private T get(final int ind) {
-        return ind < 0 || size() <= ind ? null : data.get(ind);
+        return ind < from || to <= ind ? null : data.get(ind);
     }
 
     @Override
     public T lower(final T key) {
-        return get(findInd(key, -1, -1));
+        return get(descending ? findInd(key, 1, 0) : findInd(key, -1, -1));
     }
 
     @Override
     public T floor(final T key) {
-        return get(findInd(key, 0, -1));
+        return get(descending ? findInd(key, 0, 0) : findInd(key, 0, -1));
     }
 
     @Override
     public T ceiling(final T key) {
-        return get(findInd(key, 0, 0));
+        return get(descending ? findInd(key, 0, -1) : findInd(key, 0, 0));
     }
 
     @Override
     public T higher(final T key) {
-        return get(findInd(key, 1, 0));
+        return get(descending ? findInd(key, -1, -1) : findInd(key, 1, 0));
     }
 
     @Override
@@ -73,30 +156,90 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
         throw new UnsupportedOperationException("operation is not supported");
     }
 
-    // :NOTE: Новый unmodifiableList
     @Override
     public Iterator<T> iterator() {
-        return Collections.unmodifiableList(data).iterator();
+        return descending ? reversedIterator() : directIterator();
+    }
+
+    private Iterator<T> directIterator() {
+        return new Iterator<>() {
+            private int ind = from;
+
+            @Override
+            public boolean hasNext() {
+                return ind < to;
+            }
+
+            @Override
+            public T next() {
+                if (ind >= to) {
+                    throw new NoSuchElementException();
+                }
+                return data.get(ind++);
+            }
+        };
+    }
+
+    private Iterator<T> reversedIterator() {
+        return new Iterator<>() {
+            private int ind = to;
+
+            @Override
+            public boolean hasNext() {
+                return ind > from;
+            }
+
+            @Override
+            public T next() {
+                if (ind <= from) {
+                    throw new NoSuchElementException();
+                }
+                return data.get(--ind);
+            }
+        };
+    }
+
+    @Override
+    public void forEach(final Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        if (descending) {
+            for (int i = to - 1; i >= from; i--) {
+                action.accept(data.get(i));
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                action.accept(data.get(i));
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new RangeSpliterator(from, to);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public boolean contains(final Object o) {
-        return Collections.binarySearch(data, (T) o, comparator) >= 0;
+        return search((T) o) >= 0;
     }
 
     @Override
     public NavigableSet<T> descendingSet() {
-        return new ArraySet<>(new ReversedList<>(data), Collections.reverseOrder(comparator));
+        return new ArraySet<>(data, comparator, index, from, to, !descending);
     }
 
     @Override
     public Iterator<T> descendingIterator() {
-        return descendingSet().iterator();
+        return descending ? directIterator() : reversedIterator();
     }
 
-    @SuppressWarnings("unchecked")
     private int compare(final T a, final T b) {
+        return compare(comparator, a, b);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> int compare(final Comparator<? super T> comparator, final T a, final T b) {
         if (comparator == null) {
             return ((Comparable<T>) a).compareTo(b);
         }
@@ -104,38 +247,42 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
     }
 
     private ArraySet<T> sub(final int left, final int right) {
-        if (left > right) {
-            return new ArraySet<>(comparator);
-        }
-        return new ArraySet<>(data.subList(left, right), comparator);
+        return new ArraySet<>(data, comparator, index, left, Math.max(left, right), descending);
     }
 
+    // bounds of views are found in direct order, reversed view swaps them
+    private int leftBound(final T element, final boolean inclusive) {
+        return findInd(element, inclusive ? 0 : 1, 0);
+    }
+
+    private int rightBound(final T element, final boolean inclusive) {
+        return findInd(element, inclusive ? 1 : 0, 0);
+    }
 
     @Override
     public NavigableSet<T> subSet(final T fromElement, final boolean fromInclusive, final T toElement, final boolean toInclusive) {
-        if (compare(fromElement, toElement) > 0) {
+        if (descending ? compare(fromElement, toElement) < 0 : compare(fromElement, toElement) > 0) {
             throw new IllegalArgumentException("wrong range of subSet");
         }
-        final int left = findInd(fromElement, fromInclusive ? 0 : 1, 0);
-        final int right = findInd(toElement, toInclusive ? 1 : 0, 0);
-        return sub(left, right);
+        if (descending) {
+            return sub(leftBound(toElement, toInclusive), rightBound(fromElement, fromInclusive));
+        }
+        return sub(leftBound(fromElement, fromInclusive), rightBound(toElement, toInclusive));
     }
 
     @Override
     public NavigableSet<T> headSet(final T toElement, final boolean inclusive) {
-        final int right = findInd(toElement, inclusive ? 1 : 0, 0);
-        return sub(0, right);
+        return descending ? sub(leftBound(toElement, inclusive), to) : sub(from, rightBound(toElement, inclusive));
     }
 
     @Override
     public NavigableSet<T> tailSet(final T fromElement, final boolean inclusive) {
-        final int left = findInd(fromElement, inclusive ? 0 : 1, 0);
-        return sub(left, size());
+        return descending ? sub(from, rightBound(fromElement, inclusive)) : sub(leftBound(fromElement, inclusive), to);
     }
 
     @Override
     public Comparator<? super T> comparator() {
-        return comparator;
+        return descending ? Collections.reverseOrder(comparator) : comparator;
     }
 
     @Override
@@ -155,22 +302,104 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
 
     @Override
     public T first() {
-        if (data.isEmpty()) {
+        if (from == to) {
             throw new NoSuchElementException("set is empty");
         }
-        return data.get(0);
+        return data.get(descending ? to - 1 : from);
     }
 
     @Override
     public T last() {
-        if (data.isEmpty()) {
+        if (from == to) {
             throw new NoSuchElementException("set is empty");
         }
-        return data.get(size() - 1);
+        return data.get(descending ? from : to - 1);
     }
 
     @Override
     public int size() {
-        return data.size();
+        return to - from;
+    }
+
+    // splits range of data in halves, in reversed view prefix is upper half
+    private class RangeSpliterator implements Spliterator<T> {
+        private int left;
+        private int right;
+
+        private RangeSpliterator(final int left, final int right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            if (left >= right) {
+                return false;
+            }
+            action.accept(data.get(descending ? --right : left++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            final int l = left;
+            final int r = right;
+            left = right;
+            if (descending) {
+                for (int i = r - 1; i >= l; i--) {
+                    action.accept(data.get(i));
+                }
+            } else {
+                for (int i = l; i < r; i++) {
+                    action.accept(data.get(i));
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            final int middle = (left + right) >>> 1;
+            if (middle == left) {
+                return null;
+            }
+            if (descending) {
+                final Spliterator<T> prefix = new RangeSpliterator(middle, right);
+                right = middle;
+                return prefix;
+            }
+            final Spliterator<T> prefix = new RangeSpliterator(left, middle);
+            left = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return right - left;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | SIZED | SUBSIZED | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return comparator();
+        }
+    }
+
+    private class ViewList extends AbstractList<T> implements RandomAccess {
+        @Override
+        public T get(final int ind) {
+            Objects.checkIndex(ind, size());
+            return data.get(descending ? to - 1 - ind : from + ind);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
     }
 }
@@ -0,0 +1,295 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.util.*;
+
+/**
+ * Union, intersection and difference of {@link ArraySet}s by linear merge of their arrays.
+ * When one set is much smaller than the other, runs of the larger one are skipped by galloping search,
+ * so operation costs {@code O(m log(n / m))} comparisons instead of {@code O(n + m)}.
+ * <p>
+ * Sets must have equal {@link ArraySet#comparator() comparators}, result is ordered the same way.
+ * Of equal elements the one from the first set is kept.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public final class ArraySets {
+    // size ratio from which galloping is faster than stepping by one element
+    private static final int GALLOP = 8;
+    // minimal number of elements given to each thread
+    private static final int PARALLEL = 1 << 16;
+
+    private enum Operation {
+        UNION(true, true, true),
+        INTERSECTION(false, true, false),
+        DIFFERENCE(true, false, false);
+
+        private final boolean first;
+        private final boolean both;
+        private final boolean second;
+
+        Operation(final boolean first, final boolean both, final boolean second) {
+            this.first = first;
+            this.both = both;
+            this.second = second;
+        }
+    }
+
+    private ArraySets() {
+    }
+
+    /**
+     * Elements of any of sets.
+     *
+     * @param a   first set
+     * @param b   second set
+     * @param <T> element type
+     * @return new set
+     * @throws IllegalArgumentException if sets have different orders
+     */
+    public static <T> ArraySet<T> union(final ArraySet<T> a, final ArraySet<T> b) {
+        return sequential(Operation.UNION, a, b);
+    }
+
+    /**
+     * Elements of both sets.
+     *
+     * @param a   first set
+     * @param b   second set
+     * @param <T> element type
+     * @return new set
+     * @throws IllegalArgumentException if sets have different orders
+     */
+    public static <T> ArraySet<T> intersection(final ArraySet<T> a, final ArraySet<T> b) {
+        return sequential(Operation.INTERSECTION, a, b);
+    }
+
+    /**
+     * Elements of first set which are not in second one.
+     *
+     * @param a   first set
+     * @param b   second set
+     * @param <T> element type
+     * @return new set
+     * @throws IllegalArgumentException if sets have different orders
+     */
+    public static <T> ArraySet<T> difference(final ArraySet<T> a, final ArraySet<T> b) {
+        return sequential(Operation.DIFFERENCE, a, b);
+    }
+
+    /**
+     * {@link #union(ArraySet, ArraySet)} in several threads.
+     *
+     * @param threads maximal number of threads
+     * @param a       first set
+     * @param b       second set
+     * @param <T>     element type
+     * @return new set
+     * @throws InterruptedException if threads are interrupted
+     */
+    public static <T> ArraySet<T> union(final int threads, final ArraySet<T> a, final ArraySet<T> b) throws InterruptedException {
+        return parallel(threads, Operation.UNION, a, b);
+    }
+
+    /**
+     * {@link #intersection(ArraySet, ArraySet)} in several threads.
+     *
+     * @param threads maximal number of threads
+     * @param a       first set
+     * @param b       second set
+     * @param <T>     element type
+     * @return new set
+     * @throws InterruptedException if threads are interrupted
+     */
+    public static <T> ArraySet<T> intersection(final int threads, final ArraySet<T> a, final ArraySet<T> b) throws InterruptedException {
+        return parallel(threads, Operation.INTERSECTION, a, b);
+    }
+
+    /**
+     * {@link #difference(ArraySet, ArraySet)} in several threads.
+     *
+     * @param threads maximal number of threads
+     * @param a       first set
+     * @param b       second set
+     * @param <T>     element type
+     * @return new set
+     * @throws InterruptedException if threads are interrupted
+     */
+    public static <T> ArraySet<T> difference(final int threads, final ArraySet<T> a, final ArraySet<T> b) throws InterruptedException {
+        return parallel(threads, Operation.DIFFERENCE, a, b);
+    }
+
+    private static <T> Comparator<? super T> order(final ArraySet<T> a, final ArraySet<T> b) {
+        if (!Objects.equals(a.comparator(), b.comparator())) {
+            throw new IllegalArgumentException("sets have different orders");
+        }
+        return a.comparator();
+    }
+
+    private static <T> ArraySet<T> sequential(final Operation operation, final ArraySet<T> a, final ArraySet<T> b) {
+        final Comparator<? super T> comparator = order(a, b);
+        final List<T> x = a.asList();
+        final List<T> y = b.asList();
+        final List<T> result = new ArrayList<>(capacity(operation, x.size(), y.size()));
+        merge(operation, comparator, x, 0, x.size(), y, 0, y.size(), result);
+        return ArraySet.ofSorted(result, comparator);
+    }
+
+    // larger set is cut into equal parts, cuts of smaller one are found by search, parts are merged independently
+    private static <T> ArraySet<T> parallel(final int threads, final Operation operation,
+                                            final ArraySet<T> a, final ArraySet<T> b) throws InterruptedException {
+        final Comparator<? super T> comparator = order(a, b);
+        final List<T> x = a.asList();
+        final List<T> y = b.asList();
+        final int parts = Math.min(threads, (x.size() + y.size()) / PARALLEL);
+        if (parts <= 1) {
+            return sequential(operation, a, b);
+        }
+
+        final boolean byFirst = x.size() >= y.size();
+        final List<T> larger = byFirst ? x : y;
+        final List<T> smaller = byFirst ? y : x;
+        final int[] largerCuts = new int[parts + 1];
+        final int[] smallerCuts = new int[parts + 1];
+        largerCuts[parts] = larger.size();
+        smallerCuts[parts] = smaller.size();
+        for (int i = 1; i < parts; i++) {
+            largerCuts[i] = (int) ((long) larger.size() * i / parts);
+            smallerCuts[i] = lowerBound(comparator, smaller, smallerCuts[i - 1], smaller.size(), larger.get(largerCuts[i]));
+        }
+        final int[] xCuts = byFirst ? largerCuts : smallerCuts;
+        final int[] yCuts = byFirst ? smallerCuts : largerCuts;
+
+        final List<List<T>> results = new ArrayList<>(Collections.nCopies(parts, null));
+        final Throwable[] errors = new Throwable[parts];
+        final List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < parts; i++) {
+            final int part = i;
+            final Thread thread = new Thread(() -> {
+                try {
+                    final List<T> result = new ArrayList<>(capacity(operation,
+                            xCuts[part + 1] - xCuts[part], yCuts[part + 1] - yCuts[part]));
+                    merge(operation, comparator, x, xCuts[part], xCuts[part + 1], y, yCuts[part], yCuts[part + 1], result);
+                    results.set(part, result);
+                } catch (final Throwable e) {
+                    errors[part] = e;
+                }
+            });
+            workers.add(thread);
+            thread.start();
+        }
+        join(workers);
+        rethrow(errors);
+
+        int size = 0;
+        for (final List<T> result : results) {
+            size += result.size();
+        }
+        final List<T> result = new ArrayList<>(size);
+        results.forEach(result::addAll);
+        return ArraySet.ofSorted(result, comparator);
+    }
+
+    private static void join(final List<Thread> workers) throws InterruptedException {
+        for (int i = 0; i < workers.size(); i++) {
+            try {
+                workers.get(i).join();
+            } catch (final InterruptedException e) {
+                for (int j = i; j < workers.size(); j++) {
+                    workers.get(j).interrupt();
+                }
+                throw e;
+            }
+        }
+    }
+
+    // merge throws only unchecked exceptions, the first one is rethrown with others suppressed
+    private static void rethrow(final Throwable[] errors) {
+        Throwable error = null;
+        for (final Throwable e : errors) {
+            if (e == null) {
+                continue;
+            }
+            if (error == null) {
+                error = e;
+            } else {
+                error.addSuppressed(e);
+            }
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+    }
+
+    private static int capacity(final Operation operation, final int n, final int m) {
+        switch (operation) {
+            case UNION:
+                return n + m;
+            case INTERSECTION:
+                return Math.min(n, m);
+            default:
+                return n;
+        }
+    }
+
+    private static <T> void merge(final Operation operation, final Comparator<? super T> comparator,
+                                  final List<T> x, int i, final int xEnd,
+                                  final List<T> y, int j, final int yEnd,
+                                  final List<T> result) {
+        final int n = xEnd - i;
+        final int m = yEnd - j;
+        final boolean gallop = Math.max(n, m) >= GALLOP * (long) Math.max(1, Math.min(n, m));
+        while (i < xEnd && j < yEnd) {
+            final int cmp = ArraySet.compare(comparator, x.get(i), y.get(j));
+            if (cmp < 0) {
+                final int k = gallop ? lowerBound(comparator, x, i + 1, xEnd, y.get(j)) : i + 1;
+                if (operation.first) {
+                    result.addAll(x.subList(i, k));
+                }
+                i = k;
+            } else if (cmp > 0) {
+                final int k = gallop ? lowerBound(comparator, y, j + 1, yEnd, x.get(i)) : j + 1;
+                if (operation.second) {
+                    result.addAll(y.subList(j, k));
+                }
+                j = k;
+            } else {
+                if (operation.both) {
+                    result.add(x.get(i));
+                }
+                i++;
+                j++;
+            }
+        }
+        if (operation.first) {
+            result.addAll(x.subList(i, xEnd));
+        }
+        if (operation.second) {
+            result.addAll(y.subList(j, yEnd));
+        }
+    }
+
+    // first index in [from, to) with element not less than key, by exponential steps from left end
+    private static <T> int lowerBound(final Comparator<? super T> comparator, final List<T> list,
+                                      final int from, final int to, final T key) {
+        int left = from;
+        int step = 1;
+        while (left + step - 1 < to && ArraySet.compare(comparator, list.get(left + step - 1), key) < 0) {
+            left += step;
+            step <<= 1;
+        }
+        int right = Math.min(to, left + step - 1);
+        while (left < right) {
+            final int middle = (left + right) >>> 1;
+            if (ArraySet.compare(comparator, list.get(middle), key) < 0) {
+                left = middle + 1;
+            } else {
+                right = middle;
+            }
+        }
+        return left;
+    }
+}
@@ -0,0 +1,78 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Integral keys of sorted list in implicit static B-tree with nodes of {@value #B} {@code long} values, a cache line.
+ * Node {@code k} has children {@code k * (B + 1) + 1 ... k * (B + 1) + B + 1},
+ * search touches {@code log(n) / log(B + 1)} nodes instead of {@code log(n)} distant cells of binary search.
+ *
+ * @author Yaroslav Ilin
+ */
+
+class BTreeIndex<T> extends IntegralIndex<T> {
+    private static final int B = 8;
+
+    private final long[] tree;
+    private final int[] rank;
+    private final int nodes;
+    private final int size;
+
+    private BTreeIndex(final List<T> sorted) {
+        super(sorted);
+        this.size = sorted.size();
+        this.nodes = (size + B - 1) / B;
+        this.tree = new long[nodes * B];
+        this.rank = new int[nodes * B];
+        // free cells are last in order, they are never less than key and have no rank
+        Arrays.fill(tree, Long.MAX_VALUE);
+        Arrays.fill(rank, -1);
+        fill(keys(sorted), 0, 0);
+    }
+
+    /**
+     * Index of list if it is not empty, ordered naturally and consists of keys of one integral type.
+     *
+     * @return index or {@code null} for binary search
+     */
+    static <T> BTreeIndex<T> of(final List<T> sorted, final Comparator<? super T> comparator) {
+        return applicable(sorted, comparator) ? new BTreeIndex<>(sorted) : null;
+    }
+
+    private int fill(final long[] keys, int i, final int node) {
+        if (node < nodes) {
+            for (int j = 0; j < B; j++) {
+                i = fill(keys, i, node * (B + 1) + j + 1);
+                if (i < size) {
+                    tree[node * B + j] = keys[i];
+                    rank[node * B + j] = i++;
+                }
+            }
+            i = fill(keys, i, node * (B + 1) + B + 1);
+        }
+        return i;
+    }
+
+    @Override
+    int search(final long key) {
+        int found = -1;
+        for (int node = 0; node < nodes; ) {
+            final int base = node * B;
+            // node is sorted, so number of values less than key is position of key in it
+            int left = 0;
+            for (int j = 0; j < B; j++) {
+                left += tree[base + j] < key ? 1 : 0;
+            }
+            if (left < B && rank[base + left] >= 0) {
+                found = base + left;
+            }
+            node = node * (B + 1) + left + 1;
+        }
+        if (found < 0) {
+            return -size - 1;
+        }
+        return tree[found] == key ? rank[found] : -rank[found] - 1;
+    }
+}
@@ -0,0 +1,57 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Integral keys of sorted list in {@code long} array in Eytzinger (breadth-first order of implicit binary search tree) layout.
+ * First levels of tree share few cache lines and stay in cache, each next probe is in predictable place.
+ *
+ * @author Yaroslav Ilin
+ */
+
+class EytzingerIndex<T> extends IntegralIndex<T> {
+    private final long[] tree;
+    private final int[] rank;
+
+    private EytzingerIndex(final List<T> sorted) {
+        super(sorted);
+        this.tree = new long[sorted.size() + 1];
+        this.rank = new int[sorted.size() + 1];
+        fill(keys(sorted), 0, 1);
+    }
+
+    /**
+     * Index of list if it is not empty, ordered naturally and consists of keys of one integral type.
+     *
+     * @return index or {@code null} for binary search
+     */
+    static <T> EytzingerIndex<T> of(final List<T> sorted, final Comparator<? super T> comparator) {
+        return applicable(sorted, comparator) ? new EytzingerIndex<>(sorted) : null;
+    }
+
+    private int fill(final long[] keys, int i, final int k) {
+        if (k < tree.length) {
+            i = fill(keys, i, 2 * k);
+            tree[k] = keys[i];
+            rank[k] = i++;
+            i = fill(keys, i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    @Override
+    int search(final long key) {
+        final int n = tree.length - 1;
+        int k = 1;
+        while (k <= n) {
+            k = 2 * k + (tree[k] < key ? 1 : 0);
+        }
+        // strip right turns taken after the last left one, it leads to the first element not less than key
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        if (k == 0) {
+            return -n - 1;
+        }
+        return tree[k] == key ? rank[k] : -rank[k] - 1;
+    }
+}
@@ -0,0 +1,237 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable {@link NavigableSet} of {@code int} values stored in sorted {@code int[]}.
+ * Views share the array and keep range bounds and direction, methods with {@code int} arguments don't box.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class IntArraySet extends PrimitiveArraySet<Integer, IntArraySet> {
+    private final int[] data;
+
+    public IntArraySet() {
+        this(new int[0], 0, 0, false);
+    }
+
+    public IntArraySet(final int... values) {
+        this(distinct(values.clone()), false);
+    }
+
+    public IntArraySet(final Collection<? extends Integer> collection) {
+        this(distinct(collection.stream().mapToInt(Integer::intValue).toArray()), false);
+    }
+
+    private IntArraySet(final int[] data, final boolean descending) {
+        this(data, 0, data.length, descending);
+    }
+
+    private IntArraySet(final int[] data, final int from, final int to, final boolean descending) {
+        super(from, to, descending);
+        this.data = data;
+    }
+
+    private static int[] distinct(final int[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    // select instead of branch on compare
+    @Override
+    int search(final long key, final boolean inclusive) {
+        int base = from;
+        int n = to - from;
+        while (n > 1) {
+            final int half = n >>> 1;
+            final int value = data[base + half - 1];
+            base = value < key || !inclusive && value == key ? base + half : base;
+            n -= half;
+        }
+        return n == 1 && (data[base] < key || !inclusive && data[base] == key) ? base + 1 : base;
+    }
+
+    @Override
+    Integer element(final int index) {
+        return data[index];
+    }
+
+    @Override
+    IntArraySet view(final int from, final int to, final boolean descending) {
+        return new IntArraySet(data, from, to, descending);
+    }
+
+    private int get(final int index, final int absent) {
+        return index < 0 ? absent : data[index];
+    }
+
+    /**
+     * Greatest value strictly less than key in order of this set.
+     *
+     * @param key    key
+     * @param absent value returned if there is no such value
+     * @return found value or {@code absent}
+     */
+    public int lowerInt(final int key, final int absent) {
+        return get(lowerIndex(key), absent);
+    }
+
+    /**
+     * Greatest value less than or equal to key in order of this set.
+     *
+     * @param key    key
+     * @param absent value returned if there is no such value
+     * @return found value or {@code absent}
+     */
+    public int floorInt(final int key, final int absent) {
+        return get(floorIndex(key), absent);
+    }
+
+    /**
+     * Least value greater than or equal to key in order of this set.
+     *
+     * @param key    key
+     * @param absent value returned if there is no such value
+     * @return found value or {@code absent}
+     */
+    public int ceilingInt(final int key, final int absent) {
+        return get(ceilingIndex(key), absent);
+    }
+
+    /**
+     * Least value strictly greater than key in order of this set.
+     *
+     * @param key    key
+     * @param absent value returned if there is no such value
+     * @return found value or {@code absent}
+     */
+    public int higherInt(final int key, final int absent) {
+        return get(higherIndex(key), absent);
+    }
+
+    public boolean contains(final int key) {
+        final int index = search(key, true);
+        return index < to && data[index] == key;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return o instanceof Integer && contains((int) (Integer) o);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return descending ? descending(from, to) : ascending(from, to);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt descendingIterator() {
+        return descending ? ascending(from, to) : descending(from, to);
+    }
+
+    private PrimitiveIterator.OfInt ascending(final int from, final int to) {
+        return new PrimitiveIterator.OfInt() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return index < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return data[index++];
+            }
+        };
+    }
+
+    private PrimitiveIterator.OfInt descending(final int from, final int to) {
+        return new PrimitiveIterator.OfInt() {
+            private int index = to;
+
+            @Override
+            public boolean hasNext() {
+                return index > from;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index <= from) {
+                    throw new NoSuchElementException();
+                }
+                return data[--index];
+            }
+        };
+    }
+
+    /**
+     * Perform action for each value in order of this set.
+     *
+     * @param action action
+     */
+    public void forEachInt(final IntConsumer action) {
+        if (descending) {
+            for (int i = to - 1; i >= from; i--) {
+                action.accept(data[i]);
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                action.accept(data[i]);
+            }
+        }
+    }
+
+    @Override
+    public void forEach(final Consumer<? super Integer> action) {
+        forEachInt(action::accept);
+    }
+
+    /**
+     * Values in order of this set.
+     *
+     * @return new array of values
+     */
+    public int[] toIntArray() {
+        final int[] result = Arrays.copyOfRange(data, from, to);
+        if (descending) {
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                final int tmp = result[i];
+                result[i] = result[j];
+                result[j] = tmp;
+            }
+        }
+        return result;
+    }
+
+    public IntArraySet subSet(final int fromElement, final boolean fromInclusive, final int toElement, final boolean toInclusive) {
+        return subView(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    public IntArraySet headSet(final int toElement, final boolean inclusive) {
+        return headView(toElement, inclusive);
+    }
+
+    public IntArraySet tailSet(final int fromElement, final boolean inclusive) {
+        return tailView(fromElement, inclusive);
+    }
+
+    public int firstInt() {
+        return data[firstIndex()];
+    }
+
+    public int lastInt() {
+        return data[lastIndex()];
+    }
+}
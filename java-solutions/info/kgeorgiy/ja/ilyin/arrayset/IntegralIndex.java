@@ -0,0 +1,74 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index over copy of naturally ordered keys of one integral type, searched as {@code long} values without boxing.
+ * Keys of other types are searched by binary search over list itself.
+ *
+ * @author Yaroslav Ilin
+ */
+
+abstract class IntegralIndex<T> implements SearchIndex<T> {
+    private final List<T> sorted;
+    private final Class<?> type;
+
+    IntegralIndex(final List<T> sorted) {
+        this.sorted = sorted;
+        this.type = sorted.get(0).getClass();
+    }
+
+    /**
+     * Whether list is not empty, ordered naturally and consists of keys of one integral type.
+     *
+     * @return {@code true} if list can be indexed
+     */
+    static boolean applicable(final List<?> sorted, final Comparator<?> comparator) {
+        if (comparator != null || sorted.isEmpty()) {
+            return false;
+        }
+        final Class<?> type = sorted.get(0).getClass();
+        if (type != Integer.class && type != Long.class && type != Short.class && type != Byte.class) {
+            return false;
+        }
+        for (final Object element : sorted) {
+            if (element.getClass() != type) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keys of list as {@code long} values.
+     *
+     * @return new array of keys
+     */
+    static long[] keys(final List<?> sorted) {
+        final long[] keys = new long[sorted.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((Number) sorted.get(i)).longValue();
+        }
+        return keys;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int search(final T key) {
+        if (key.getClass() != type) {
+            // same result or exception as binary search with compareTo
+            return Collections.binarySearch((List<? extends Comparable<? super T>>) sorted, key);
+        }
+        return search(((Number) key).longValue());
+    }
+
+    /**
+     * Search key in indexed list.
+     *
+     * @param key key
+     * @return index of key, if it is present, otherwise {@code (-(insertion point) - 1)}
+     */
+    abstract int search(long key);
+}
@@ -0,0 +1,87 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Copy of naturally ordered integral keys in {@code long} array searched by interpolation:
+ * position of key is predicted from values at bounds of current range.
+ * On uniformly distributed keys search takes {@code O(log log n)} probes.
+ * When range is wider than it would be after half as many probes of binary search, next probe is in the middle,
+ * so there are at most {@code 2 log n} probes on any keys.
+ *
+ * @author Yaroslav Ilin
+ */
+
+class InterpolationIndex<T> extends IntegralIndex<T> {
+    private final long[] keys;
+
+    private InterpolationIndex(final List<T> sorted) {
+        super(sorted);
+        this.keys = keys(sorted);
+    }
+
+    /**
+     * Index of list if it is not empty, ordered naturally and consists of keys of one integral type.
+     *
+     * @return index or {@code null} for binary search
+     */
+    static <T> InterpolationIndex<T> of(final List<T> sorted, final Comparator<? super T> comparator) {
+        return applicable(sorted, comparator) ? new InterpolationIndex<>(sorted) : null;
+    }
+
+    @Override
+    int search(final long key) {
+        return (int) find(key);
+    }
+
+    /**
+     * Number of elements read by search of key.
+     */
+    int probes(final T key) {
+        return (int) (find(((Number) key).longValue()) >>> 32);
+    }
+
+    // number of probes in high half, result of search in low half
+    private long find(final long key) {
+        final int last = keys.length - 1;
+        if (key <= keys[0]) {
+            return result(1, key == keys[0] ? 0 : -1);
+        }
+        if (key >= keys[last]) {
+            return result(2, key == keys[last] ? last : -last - 2);
+        }
+        // keys[left] < key < keys[right]
+        int left = 0;
+        int right = last;
+        long leftKey = keys[0];
+        long rightKey = keys[last];
+        int probes = 2;
+        while (right - left > 1) {
+            final int width = right - left;
+            final int middle;
+            if (width <= last >> (probes >> 1)) {
+                final double fraction = ((double) key - leftKey) / ((double) rightKey - leftKey);
+                middle = Math.max(left + 1, Math.min(right - 1, left + (int) (fraction * width)));
+            } else {
+                middle = (left + right) >>> 1;
+            }
+            probes++;
+            final long value = keys[middle];
+            if (value < key) {
+                left = middle;
+                leftKey = value;
+            } else if (value > key) {
+                right = middle;
+                rightKey = value;
+            } else {
+                return result(probes, middle);
+            }
+        }
+        return result(probes, -right - 1);
+    }
+
+    private static long result(final int probes, final int index) {
+        return (long) probes << 32 | index & 0xffffffffL;
+    }
+}
@@ -0,0 +1,237 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable {@link NavigableSet} of {@code long} values stored in sorted {@code long[]}.
+ * Views share the array and keep range bounds and direction, methods with {@code long} arguments don't box.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class LongArraySet extends PrimitiveArraySet<Long, LongArraySet> {
+    private final long[] data;
+
+    public LongArraySet() {
+        this(new long[0], 0, 0, false);
+    }
+
+    public LongArraySet(final long... values) {
+        this(distinct(values.clone()), false);
+    }
+
+    public LongArraySet(final Collection<? extends Long> collection) {
+        this(distinct(collection.stream().mapToLong(Long::longValue).toArray()), false);
+    }
+
+    private LongArraySet(final long[] data, final boolean descending) {
+        this(data, 0, data.length, descending);
+    }
+
+    private LongArraySet(final long[] data, final int from, final int to, final boolean descending) {
+        super(from, to, descending);
+        this.data = data;
+    }
+
+    private static long[] distinct(final long[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    // select instead of branch on compare
+    @Override
+    int search(final long key, final boolean inclusive) {
+        int base = from;
+        int n = to - from;
+        while (n > 1) {
+            final int half = n >>> 1;
+            final long value = data[base + half - 1];
+            base = value < key || !inclusive && value == key ? base + half : base;
+            n -= half;
+        }
+        return n == 1 && (data[base] < key || !inclusive && data[base] == key) ? base + 1 : base;
+    }
+
+    @Override
+    Long element(final int index) {
+        return data[index];
+    }
+
+    @Override
+    LongArraySet view(final int from, final int to, final boolean descending) {
+        return new LongArraySet(data, from, to, descending);
+    }
+
+    private long get(final int index, final long absent) {
+        return index < 0 ? absent : data[index];
+    }
+
+    /**
+     * Greatest value strictly less than key in order of this set.
+     *
+     * @param key    key
+     * @param absent value returned if there is no such value
+     * @return found value or {@code absent}
+     */
+    public long lowerLong(final long key, final long absent) {
+        return get(lowerIndex(key), absent);
+    }
+
+    /**
+     * Greatest value less than or equal to key in order of this set.
+     *
+     * @param key    key
+     * @param absent value returned if there is no such value
+     * @return found value or {@code absent}
+     */
+    public long floorLong(final long key, final long absent) {
+        return get(floorIndex(key), absent);
+    }
+
+    /**
+     * Least value greater than or equal to key in order of this set.
+     *
+     * @param key    key
+     * @param absent value returned if there is no such value
+     * @return found value or {@code absent}
+     */
+    public long ceilingLong(final long key, final long absent) {
+        return get(ceilingIndex(key), absent);
+    }
+
+    /**
+     * Least value strictly greater than key in order of this set.
+     *
+     * @param key    key
+     * @param absent value returned if there is no such value
+     * @return found value or {@code absent}
+     */
+    public long higherLong(final long key, final long absent) {
+        return get(higherIndex(key), absent);
+    }
+
+    public boolean contains(final long key) {
+        final int index = search(key, true);
+        return index < to && data[index] == key;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return o instanceof Long && contains((long) (Long) o);
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return descending ? descending(from, to) : ascending(from, to);
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong descendingIterator() {
+        return descending ? ascending(from, to) : descending(from, to);
+    }
+
+    private PrimitiveIterator.OfLong ascending(final int from, final int to) {
+        return new PrimitiveIterator.OfLong() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return index < to;
+            }
+
+            @Override
+            public long nextLong() {
+                if (index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return data[index++];
+            }
+        };
+    }
+
+    private PrimitiveIterator.OfLong descending(final int from, final int to) {
+        return new PrimitiveIterator.OfLong() {
+            private int index = to;
+
+            @Override
+            public boolean hasNext() {
+                return index > from;
+            }
+
+            @Override
+            public long nextLong() {
+                if (index <= from) {
+                    throw new NoSuchElementException();
+                }
+                return data[--index];
+            }
+        };
+    }
+
+    /**
+     * Perform action for each value in order of this set.
+     *
+     * @param action action
+     */
+    public void forEachLong(final LongConsumer action) {
+        if (descending) {
+            for (int i = to - 1; i >= from; i--) {
+                action.accept(data[i]);
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                action.accept(data[i]);
+            }
+        }
+    }
+
+    @Override
+    public void forEach(final Consumer<? super Long> action) {
+        forEachLong(action::accept);
+    }
+
+    /**
+     * Values in order of this set.
+     *
+     * @return new array of values
+     */
+    public long[] toLongArray() {
+        final long[] result = Arrays.copyOfRange(data, from, to);
+        if (descending) {
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                final long tmp = result[i];
+                result[i] = result[j];
+                result[j] = tmp;
+            }
+        }
+        return result;
+    }
+
+    public LongArraySet subSet(final long fromElement, final boolean fromInclusive, final long toElement, final boolean toInclusive) {
+        return subView(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    public LongArraySet headSet(final long toElement, final boolean inclusive) {
+        return headView(toElement, inclusive);
+    }
+
+    public LongArraySet tailSet(final long fromElement, final boolean inclusive) {
+        return tailView(fromElement, inclusive);
+    }
+
+    public long firstLong() {
+        return data[firstIndex()];
+    }
+
+    public long lastLong() {
+        return data[lastIndex()];
+    }
+}
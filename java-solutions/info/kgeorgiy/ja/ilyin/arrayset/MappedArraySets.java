@@ -0,0 +1,234 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * {@link ArraySet}s over memory-mapped sorted files, elements are read from page cache on access
+ * and are not stored on heap. Files are mapped in chunks of 1 GiB and stay mapped until set is collected.
+ * <p>
+ * File format: magic, kind, number of keys, maximal key length and padding, 24 bytes,
+ * followed by big-endian {@code long} keys or by offsets of {@code count + 1} key boundaries and key bytes.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public final class MappedArraySets {
+    private static final int MAGIC = 0x41534d31;
+    private static final int LONGS = 0;
+    private static final int KEYS = 1;
+    private static final int HEADER = 24;
+
+    /**
+     * Lexicographic order of byte keys, bytes are compared as unsigned.
+     */
+    public static final Comparator<ByteBuffer> KEY_ORDER = (a, b) -> {
+        final int i = a.mismatch(b);
+        if (i < 0) {
+            return 0;
+        }
+        if (i == a.remaining() || i == b.remaining()) {
+            return Integer.compare(a.remaining(), b.remaining());
+        }
+        return Byte.compareUnsigned(a.get(a.position() + i), b.get(b.position() + i));
+    };
+
+    private MappedArraySets() {
+    }
+
+    /**
+     * Write file of {@code long} keys.
+     *
+     * @param file   file to write
+     * @param values keys, in any order with duplicates
+     * @throws IOException if writing failed
+     */
+    public static void writeLongs(final Path file, final long... values) throws IOException {
+        final long[] sorted = new LongArraySet(values).toLongArray();
+        try (DataOutputStream out = open(file)) {
+            writeHeader(out, LONGS, sorted.length, Long.BYTES);
+            for (final long value : sorted) {
+                out.writeLong(value);
+            }
+        }
+    }
+
+    /**
+     * Write file of byte keys.
+     *
+     * @param file file to write
+     * @param keys keys, in any order with duplicates
+     * @throws IOException if writing failed
+     */
+    public static void writeKeys(final Path file, final Collection<byte[]> keys) throws IOException {
+        final byte[][] sorted = keys.toArray(new byte[0][]);
+        Arrays.sort(sorted, Arrays::compareUnsigned);
+        int count = 0;
+        int maxLength = 0;
+        for (final byte[] key : sorted) {
+            if (count == 0 || !Arrays.equals(sorted[count - 1], key)) {
+                sorted[count++] = key;
+                maxLength = Math.max(maxLength, key.length);
+            }
+        }
+        try (DataOutputStream out = open(file)) {
+            writeHeader(out, KEYS, count, maxLength);
+            long offset = 0;
+            out.writeLong(offset);
+            for (int i = 0; i < count; i++) {
+                offset += sorted[i].length;
+                out.writeLong(offset);
+            }
+            for (int i = 0; i < count; i++) {
+                out.write(sorted[i]);
+            }
+        }
+    }
+
+    private static DataOutputStream open(final Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+    }
+
+    private static void writeHeader(final DataOutputStream out, final int kind, final int count, final int maxLength) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(kind);
+        out.writeLong(count);
+        out.writeInt(maxLength);
+        out.writeInt(0);
+    }
+
+    /**
+     * Open file written by {@link #writeLongs}.
+     *
+     * @param file file to map
+     * @return immutable set of keys
+     * @throws IOException if file can't be mapped or has wrong format
+     */
+    public static ArraySet<Long> openLongs(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = readHeader(file, channel, LONGS);
+            final int count = (int) header.getLong(8);
+            final Region values = new Region(channel, HEADER, HEADER + (long) count * Long.BYTES, Long.BYTES);
+            return ArraySet.ofSorted(new LongList(values, count), null);
+        }
+    }
+
+    /**
+     * Open file written by {@link #writeKeys}, keys are read-only buffers ordered by {@link #KEY_ORDER}.
+     *
+     * @param file file to map
+     * @return immutable set of keys
+     * @throws IOException if file can't be mapped or has wrong format
+     */
+    public static ArraySet<ByteBuffer> openKeys(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = readHeader(file, channel, KEYS);
+            final int count = (int) header.getLong(8);
+            final int maxLength = header.getInt(16);
+            final long data = HEADER + (count + 1L) * Long.BYTES;
+            final Region offsets = new Region(channel, HEADER, data, Long.BYTES);
+            final Region keys = new Region(channel, data, channel.size(), maxLength);
+            return ArraySet.ofSorted(new KeyList(offsets, keys, count), KEY_ORDER);
+        }
+    }
+
+    private static ByteBuffer readHeader(final Path file, final FileChannel channel, final int kind) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // read until header is full or end of file
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != kind
+                || header.getLong(8) < 0 || header.getLong(8) > Integer.MAX_VALUE) {
+            throw new IOException("not a sorted key file of expected kind: " + file);
+        }
+        return header;
+    }
+
+    /**
+     * Part of file mapped in chunks overlapping by maximal length of value, so each value is in one chunk.
+     */
+    private static class Region {
+        private static final int CHUNK_BITS = 30;
+        private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+        private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+        private final ByteBuffer[] chunks;
+
+        private Region(final FileChannel channel, final long start, final long end, final int overlap) throws IOException {
+            if (end > channel.size()) {
+                throw new IOException("truncated sorted key file");
+            }
+            chunks = new ByteBuffer[(int) ((end - start + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                final long from = start + ((long) i << CHUNK_BITS);
+                final long length = Math.min(end - from, (1L << CHUNK_BITS) + overlap);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+            }
+        }
+
+        private long getLong(final long position) {
+            return chunks[(int) (position >>> CHUNK_BITS)].getLong((int) (position & CHUNK_MASK));
+        }
+
+        private ByteBuffer slice(final long position, final int length) {
+            if (length == 0) {
+                return EMPTY.duplicate();
+            }
+            final int offset = (int) (position & CHUNK_MASK);
+            return chunks[(int) (position >>> CHUNK_BITS)].duplicate().position(offset).limit(offset + length).slice();
+        }
+    }
+
+    private static class LongList extends AbstractList<Long> implements RandomAccess {
+        private final Region values;
+        private final int size;
+
+        private LongList(final Region values, final int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public Long get(final int index) {
+            Objects.checkIndex(index, size);
+            return values.getLong((long) index * Long.BYTES);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static class KeyList extends AbstractList<ByteBuffer> implements RandomAccess {
+        private final Region offsets;
+        private final Region keys;
+        private final int size;
+
+        private KeyList(final Region offsets, final Region keys, final int size) {
+            this.offsets = offsets;
+            this.keys = keys;
+            this.size = size;
+        }
+
+        @Override
+        public ByteBuffer get(final int index) {
+            Objects.checkIndex(index, size);
+            final long from = offsets.getLong((long) index * Long.BYTES);
+            final long to = offsets.getLong((index + 1L) * Long.BYTES);
+            return keys.slice(from, (int) (to - from));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
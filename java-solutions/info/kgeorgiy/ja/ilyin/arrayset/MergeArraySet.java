@@ -0,0 +1,641 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Mutable {@link NavigableSet} stored in sorted array and small delta of inserted and deleted elements.
+ * Delta is merged into array in one linear pass when it grows to {@code 1/16} of array,
+ * so single changes cost {@code O(log n)} amortized and bulk changes are linear.
+ * Reads and iteration see array and delta merged, range and descending views are backed by this set.
+ * Not thread-safe, iterators are fail-fast.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class MergeArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
+    private final Storage<T> storage;
+    private final T lo;
+    private final boolean loInclusive;
+    private final boolean hasLo;
+    private final T hi;
+    private final boolean hiInclusive;
+    private final boolean hasHi;
+    private final boolean descending;
+
+    public MergeArraySet() {
+        this(Collections.emptyList(), null);
+    }
+
+    public MergeArraySet(final Collection<? extends T> collection) {
+        this(collection, null);
+    }
+
+    public MergeArraySet(final Comparator<? super T> comparator) {
+        this(Collections.emptyList(), comparator);
+    }
+
+    public MergeArraySet(final Collection<? extends T> collection, final Comparator<? super T> comparator) {
+        this(new Storage<>(collection, comparator), null, false, false, null, false, false, false);
+    }
+
+    private MergeArraySet(final Storage<T> storage,
+                          final T lo, final boolean loInclusive, final boolean hasLo,
+                          final T hi, final boolean hiInclusive, final boolean hasHi,
+                          final boolean descending) {
+        this.storage = storage;
+        this.lo = lo;
+        this.loInclusive = loInclusive;
+        this.hasLo = hasLo;
+        this.hi = hi;
+        this.hiInclusive = hiInclusive;
+        this.hasHi = hasHi;
+        this.descending = descending;
+    }
+
+    private boolean bounded() {
+        return hasLo || hasHi;
+    }
+
+    private boolean tooLow(final T key) {
+        if (!hasLo) {
+            return false;
+        }
+        final int cmp = storage.compare(key, lo);
+        return cmp < 0 || cmp == 0 && !loInclusive;
+    }
+
+    private boolean tooHigh(final T key) {
+        if (!hasHi) {
+            return false;
+        }
+        final int cmp = storage.compare(key, hi);
+        return cmp > 0 || cmp == 0 && !hiInclusive;
+    }
+
+    private boolean inRange(final T key) {
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    private boolean inClosedRange(final T key) {
+        return (!hasLo || storage.compare(key, lo) >= 0) && (!hasHi || storage.compare(key, hi) <= 0);
+    }
+
+    private T lowest() {
+        final T result = hasLo ? storage.higher(lo, loInclusive) : storage.first();
+        return result == null || tooHigh(result) ? null : result;
+    }
+
+    private T highest() {
+        final T result = hasHi ? storage.lower(hi, hiInclusive) : storage.last();
+        return result == null || tooLow(result) ? null : result;
+    }
+
+    private T below(final T key, final boolean inclusive) {
+        if (tooHigh(key)) {
+            return highest();
+        }
+        final T result = storage.lower(key, inclusive);
+        return result == null || tooLow(result) ? null : result;
+    }
+
+    private T above(final T key, final boolean inclusive) {
+        if (tooLow(key)) {
+            return lowest();
+        }
+        final T result = storage.higher(key, inclusive);
+        return result == null || tooHigh(result) ? null : result;
+    }
+
+    @Override
+    public T lower(final T key) {
+        return descending ? above(key, false) : below(key, false);
+    }
+
+    @Override
+    public T floor(final T key) {
+        return descending ? above(key, true) : below(key, true);
+    }
+
+    @Override
+    public T ceiling(final T key) {
+        return descending ? below(key, true) : above(key, true);
+    }
+
+    @Override
+    public T higher(final T key) {
+        return descending ? below(key, false) : above(key, false);
+    }
+
+    @Override
+    public T first() {
+        final T result = descending ? highest() : lowest();
+        if (result == null) {
+            throw new NoSuchElementException("set is empty");
+        }
+        return result;
+    }
+
+    @Override
+    public T last() {
+        final T result = descending ? lowest() : highest();
+        if (result == null) {
+            throw new NoSuchElementException("set is empty");
+        }
+        return result;
+    }
+
+    @Override
+    public T pollFirst() {
+        final T result = descending ? highest() : lowest();
+        if (result != null) {
+            storage.remove(result, true);
+        }
+        return result;
+    }
+
+    @Override
+    public T pollLast() {
+        final T result = descending ? lowest() : highest();
+        if (result != null) {
+            storage.remove(result, true);
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(final Object o) {
+        return inRange((T) o) && storage.contains((T) o);
+    }
+
+    @Override
+    public boolean add(final T element) {
+        if (!inRange(element)) {
+            throw new IllegalArgumentException("key out of range");
+        }
+        return storage.add(element);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(final Object o) {
+        return inRange((T) o) && storage.remove((T) o, true);
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends T> collection) {
+        for (final T element : collection) {
+            if (!inRange(element)) {
+                throw new IllegalArgumentException("key out of range");
+            }
+        }
+        return storage.addAll(collection);
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> collection) {
+        // same choice as AbstractSet, it matters for comparators inconsistent with equals
+        if (size() > collection.size()) {
+            boolean changed = false;
+            for (final Object element : collection) {
+                changed |= remove(element);
+            }
+            return changed;
+        }
+        return removeIf(collection::contains);
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> collection) {
+        return removeIf(element -> !collection.contains(element));
+    }
+
+    @Override
+    public boolean removeIf(final Predicate<? super T> filter) {
+        return storage.removeIf(bounded() ? element -> inRange(element) && filter.test(element) : filter);
+    }
+
+    @Override
+    public void clear() {
+        if (bounded()) {
+            removeIf(element -> true);
+        } else {
+            storage.clear();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lowest() == null;
+    }
+
+    @Override
+    public int size() {
+        if (!bounded()) {
+            return storage.size;
+        }
+        final int from = hasLo ? storage.baseCeiling(lo, loInclusive) : 0;
+        final int to = hasHi ? storage.baseCeiling(hi, !hiInclusive) : storage.base.length;
+        return Math.max(0, to - from) - range(storage.deleted).size() + range(storage.inserted).size();
+    }
+
+    private NavigableSet<T> range(final NavigableSet<T> set) {
+        if (hasLo && hasHi) {
+            return storage.compare(lo, hi) > 0 ? Collections.emptyNavigableSet() : set.subSet(lo, loInclusive, hi, hiInclusive);
+        }
+        return hasLo ? set.tailSet(lo, loInclusive) : set.headSet(hi, hiInclusive);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new MergeIterator(descending);
+    }
+
+    @Override
+    public Iterator<T> descendingIterator() {
+        return new MergeIterator(!descending);
+    }
+
+    @Override
+    public NavigableSet<T> descendingSet() {
+        return new MergeArraySet<>(storage, lo, loInclusive, hasLo, hi, hiInclusive, hasHi, !descending);
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        if (descending) {
+            return Collections.reverseOrder(storage.comparator);
+        }
+        return storage.comparator;
+    }
+
+    private NavigableSet<T> sub(final T newLo, final boolean newLoInclusive, final boolean newHasLo,
+                                final T newHi, final boolean newHiInclusive, final boolean newHasHi) {
+        if (newHasLo && !(newLoInclusive ? inRange(newLo) : inClosedRange(newLo))
+                || newHasHi && !(newHiInclusive ? inRange(newHi) : inClosedRange(newHi))) {
+            throw new IllegalArgumentException("key out of range");
+        }
+        return new MergeArraySet<>(storage,
+                newHasLo ? newLo : lo, newHasLo ? newLoInclusive : loInclusive, newHasLo || hasLo,
+                newHasHi ? newHi : hi, newHasHi ? newHiInclusive : hiInclusive, newHasHi || hasHi,
+                descending);
+    }
+
+    @Override
+    public NavigableSet<T> subSet(final T fromElement, final boolean fromInclusive, final T toElement, final boolean toInclusive) {
+        if (storage.compare(fromElement, toElement) * (descending ? -1 : 1) > 0) {
+            throw new IllegalArgumentException("wrong range of subSet");
+        }
+        if (descending) {
+            return sub(toElement, toInclusive, true, fromElement, fromInclusive, true);
+        }
+        return sub(fromElement, fromInclusive, true, toElement, toInclusive, true);
+    }
+
+    @Override
+    public NavigableSet<T> headSet(final T toElement, final boolean inclusive) {
+        if (descending) {
+            return sub(toElement, inclusive, true, null, false, false);
+        }
+        return sub(null, false, false, toElement, inclusive, true);
+    }
+
+    @Override
+    public NavigableSet<T> tailSet(final T fromElement, final boolean inclusive) {
+        if (descending) {
+            return sub(null, false, false, fromElement, inclusive, true);
+        }
+        return sub(fromElement, inclusive, true, null, false, false);
+    }
+
+    @Override
+    public SortedSet<T> subSet(final T fromElement, final T toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> headSet(final T toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> tailSet(final T fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    /**
+     * Merge of array, skipping deleted elements, and inserted elements, in range of view.
+     */
+    private class MergeIterator implements Iterator<T> {
+        private final boolean reversed;
+        private final T[] base;
+        private int index;
+        private T deleted;
+        private T inserted;
+        private T next;
+        private boolean fromBase;
+        private T last;
+        private int expectedModCount = storage.modCount;
+
+        private MergeIterator(final boolean reversed) {
+            this.reversed = reversed;
+            this.base = storage.base;
+            if (reversed) {
+                index = hasHi ? storage.baseCeiling(hi, !hiInclusive) - 1 : base.length - 1;
+                inserted = hasHi ? (hiInclusive ? storage.inserted.floor(hi) : storage.inserted.lower(hi))
+                        : storage.inserted.isEmpty() ? null : storage.inserted.last();
+                deleted = index >= 0 ? storage.deleted.floor(base[index]) : null;
+            } else {
+                index = hasLo ? storage.baseCeiling(lo, loInclusive) : 0;
+                inserted = hasLo ? (loInclusive ? storage.inserted.ceiling(lo) : storage.inserted.higher(lo))
+                        : storage.inserted.isEmpty() ? null : storage.inserted.first();
+                deleted = index < base.length ? storage.deleted.ceiling(base[index]) : null;
+            }
+            advance();
+        }
+
+        private int order(final T a, final T b) {
+            return reversed ? storage.compare(b, a) : storage.compare(a, b);
+        }
+
+        private T skipDeleted() {
+            for (; 0 <= index && index < base.length; index += reversed ? -1 : 1) {
+                final T element = base[index];
+                while (deleted != null && order(deleted, element) < 0) {
+                    deleted = reversed ? storage.deleted.lower(deleted) : storage.deleted.higher(deleted);
+                }
+                if (deleted == null || order(deleted, element) != 0) {
+                    return element;
+                }
+            }
+            return null;
+        }
+
+        private void advance() {
+            final T fromArray = skipDeleted();
+            fromBase = inserted == null || fromArray != null && order(fromArray, inserted) < 0;
+            next = fromBase ? fromArray : inserted;
+            if (next != null && (reversed ? tooLow(next) : tooHigh(next))) {
+                next = null;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (storage.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            if (fromBase) {
+                index += reversed ? -1 : 1;
+            } else {
+                inserted = reversed ? storage.inserted.lower(inserted) : storage.inserted.higher(inserted);
+            }
+            advance();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            if (storage.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // array is not merged until iteration ends, inserted elements are navigated by value
+            storage.remove(last, false);
+            expectedModCount = storage.modCount;
+            last = null;
+        }
+    }
+
+    private static class Storage<T> {
+        private static final int MIN_DELTA = 64;
+
+        private final Comparator<? super T> comparator;
+        private final NavigableSet<T> inserted;
+        private final NavigableSet<T> deleted;
+        private T[] base;
+        private int size;
+        private int modCount;
+
+        private Storage(final Collection<? extends T> collection, final Comparator<? super T> comparator) {
+            this.comparator = comparator;
+            this.inserted = new TreeSet<>(comparator);
+            this.deleted = new TreeSet<>(comparator);
+            this.base = sortedDistinct(collection);
+            this.size = base.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T[] sortedDistinct(final Collection<? extends T> collection) {
+            final T[] elements = (T[]) collection.toArray();
+            Arrays.sort(elements, comparator);
+            int length = 0;
+            for (final T element : elements) {
+                if (length == 0 ? compare(element, element) == 0 : compare(elements[length - 1], element) != 0) {
+                    elements[length++] = element;
+                }
+            }
+            return length == elements.length ? elements : Arrays.copyOf(elements, length);
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(final T a, final T b) {
+            if (comparator == null) {
+                return ((Comparable<T>) a).compareTo(b);
+            }
+            return comparator.compare(a, b);
+        }
+
+        private int threshold() {
+            return Math.max(MIN_DELTA, base.length >>> 4);
+        }
+
+        /**
+         * Index of first element of array greater than key (or equal, if inclusive).
+         */
+        private int baseCeiling(final T key, final boolean inclusive) {
+            final int index = Arrays.binarySearch(base, key, comparator);
+            if (index >= 0) {
+                return inclusive ? index : index + 1;
+            }
+            return -index - 1;
+        }
+
+        private boolean inBase(final T key) {
+            return Arrays.binarySearch(base, key, comparator) >= 0;
+        }
+
+        private boolean contains(final T key) {
+            return inBase(key) ? !deleted.contains(key) : inserted.contains(key);
+        }
+
+        private T min(final T a, final T b) {
+            return a == null || b != null && compare(b, a) < 0 ? b : a;
+        }
+
+        private T max(final T a, final T b) {
+            return a == null || b != null && compare(b, a) > 0 ? b : a;
+        }
+
+        private T higher(final T key, final boolean inclusive) {
+            int index = baseCeiling(key, inclusive);
+            while (index < base.length && deleted.contains(base[index])) {
+                index++;
+            }
+            return min(index < base.length ? base[index] : null, inclusive ? inserted.ceiling(key) : inserted.higher(key));
+        }
+
+        private T lower(final T key, final boolean inclusive) {
+            int index = baseCeiling(key, !inclusive) - 1;
+            while (index >= 0 && deleted.contains(base[index])) {
+                index--;
+            }
+            return max(index >= 0 ? base[index] : null, inclusive ? inserted.floor(key) : inserted.lower(key));
+        }
+
+        private T first() {
+            int index = 0;
+            while (index < base.length && deleted.contains(base[index])) {
+                index++;
+            }
+            return min(index < base.length ? base[index] : null, inserted.isEmpty() ? null : inserted.first());
+        }
+
+        private T last() {
+            int index = base.length - 1;
+            while (index >= 0 && deleted.contains(base[index])) {
+                index--;
+            }
+            return max(index >= 0 ? base[index] : null, inserted.isEmpty() ? null : inserted.last());
+        }
+
+        private boolean add(final T element) {
+            final int index = Arrays.binarySearch(base, element, comparator);
+            if (index >= 0 ? !deleted.remove(element) : !inserted.add(element)) {
+                return false;
+            }
+            if (index >= 0) {
+                base[index] = element;
+            }
+            size++;
+            modCount++;
+            mergeIfFull();
+            return true;
+        }
+
+        private boolean remove(final T element, final boolean merge) {
+            if (inBase(element) ? !deleted.add(element) : !inserted.remove(element)) {
+                return false;
+            }
+            size--;
+            modCount++;
+            if (merge) {
+                mergeIfFull();
+            }
+            return true;
+        }
+
+        private void mergeIfFull() {
+            if (inserted.size() + deleted.size() > threshold()) {
+                merge();
+            }
+        }
+
+        private void merge() {
+            if (inserted.isEmpty() && deleted.isEmpty()) {
+                return;
+            }
+            final T[] empty = Arrays.copyOf(base, 0);
+            base = union(base, deleted.toArray(empty), inserted.toArray(empty), size);
+            inserted.clear();
+            deleted.clear();
+            modCount++;
+        }
+
+        /**
+         * Linear merge of sorted array without skipped elements of it and sorted distinct elements.
+         */
+        private T[] union(final T[] array, final T[] skip, final T[] added, final int capacity) {
+            final T[] result = Arrays.copyOf(array, capacity);
+            int length = 0;
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < array.length || j < added.length) {
+                if (i < array.length && k < skip.length && compare(array[i], skip[k]) == 0) {
+                    i++;
+                    k++;
+                    continue;
+                }
+                final int cmp = i == array.length ? 1 : j == added.length ? -1 : compare(array[i], added[j]);
+                if (cmp <= 0) {
+                    result[length++] = array[i++];
+                    j += cmp == 0 ? 1 : 0;
+                } else {
+                    result[length++] = added[j++];
+                }
+            }
+            return length == capacity ? result : Arrays.copyOf(result, length);
+        }
+
+        private boolean addAll(final Collection<? extends T> collection) {
+            if (collection.size() <= threshold()) {
+                boolean changed = false;
+                for (final T element : collection) {
+                    changed |= add(element);
+                }
+                return changed;
+            }
+            merge();
+            final T[] added = sortedDistinct(collection);
+            base = union(base, Arrays.copyOf(base, 0), added, base.length + added.length);
+            modCount++;
+            final boolean changed = base.length != size;
+            size = base.length;
+            return changed;
+        }
+
+        // filter is evaluated before anything is moved, so exception from it leaves set unchanged
+        private boolean removeIf(final Predicate<? super T> filter) {
+            merge();
+            final BitSet removed = new BitSet(base.length);
+            for (int i = 0; i < base.length; i++) {
+                if (filter.test(base[i])) {
+                    removed.set(i);
+                }
+            }
+            if (removed.isEmpty()) {
+                return false;
+            }
+            final T[] kept = Arrays.copyOf(base, base.length - removed.cardinality());
+            int length = 0;
+            for (int i = removed.nextClearBit(0); i < base.length; i = removed.nextClearBit(i + 1)) {
+                kept[length++] = base[i];
+            }
+            base = kept;
+            size = length;
+            modCount++;
+            return true;
+        }
+
+        private void clear() {
+            base = Arrays.copyOf(base, 0);
+            inserted.clear();
+            deleted.clear();
+            size = 0;
+            modCount++;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.util.*;
+
+/**
+ * Base of immutable sets over sorted primitive array.
+ * Keeps range {@code [from, to)} of array indices and direction, navigation and views work on indices,
+ * keys of all element types are passed as {@code long}.
+ *
+ * @param <T> boxed element type
+ * @param <S> type of views
+ * @author Yaroslav Ilin
+ */
+
+abstract class PrimitiveArraySet<T extends Number, S extends PrimitiveArraySet<T, S>>
+        extends AbstractSet<T> implements NavigableSet<T> {
+    final int from;
+    final int to;
+    final boolean descending;
+
+    PrimitiveArraySet(final int from, final int to, final boolean descending) {
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+    }
+
+    /**
+     * Index of first value greater than key (or equal, if inclusive) in {@code [from, to]}.
+     *
+     * @param key       key
+     * @param inclusive whether value equal to key is found
+     * @return found index or {@code to}
+     */
+    abstract int search(long key, boolean inclusive);
+
+    /**
+     * Boxed value at index of array.
+     *
+     * @param index index of array
+     * @return value
+     */
+    abstract T element(int index);
+
+    /**
+     * View of the same array.
+     *
+     * @param from       first index of view
+     * @param to         index after last of view
+     * @param descending direction of view
+     * @return view
+     */
+    abstract S view(int from, int to, boolean descending);
+
+    private int below(final long key, final boolean inclusive) {
+        final int index = search(key, !inclusive) - 1;
+        return index >= from ? index : -1;
+    }
+
+    private int above(final long key, final boolean inclusive) {
+        final int index = search(key, inclusive);
+        return index < to ? index : -1;
+    }
+
+    final int lowerIndex(final long key) {
+        return descending ? above(key, false) : below(key, false);
+    }
+
+    final int floorIndex(final long key) {
+        return descending ? above(key, true) : below(key, true);
+    }
+
+    final int ceilingIndex(final long key) {
+        return descending ? below(key, true) : above(key, true);
+    }
+
+    final int higherIndex(final long key) {
+        return descending ? below(key, false) : above(key, false);
+    }
+
+    final int firstIndex() {
+        if (from == to) {
+            throw new NoSuchElementException("set is empty");
+        }
+        return descending ? to - 1 : from;
+    }
+
+    final int lastIndex() {
+        if (from == to) {
+            throw new NoSuchElementException("set is empty");
+        }
+        return descending ? from : to - 1;
+    }
+
+    private T get(final int index) {
+        return index < 0 ? null : element(index);
+    }
+
+    @Override
+    public T lower(final T key) {
+        return get(lowerIndex(key.longValue()));
+    }
+
+    @Override
+    public T floor(final T key) {
+        return get(floorIndex(key.longValue()));
+    }
+
+    @Override
+    public T ceiling(final T key) {
+        return get(ceilingIndex(key.longValue()));
+    }
+
+    @Override
+    public T higher(final T key) {
+        return get(higherIndex(key.longValue()));
+    }
+
+    @Override
+    public T pollFirst() {
+        throw new UnsupportedOperationException("operation is not supported");
+    }
+
+    @Override
+    public T pollLast() {
+        throw new UnsupportedOperationException("operation is not supported");
+    }
+
+    @Override
+    public S descendingSet() {
+        return view(from, to, !descending);
+    }
+
+    private S sub(final int left, final int right) {
+        return view(left, Math.max(left, right), descending);
+    }
+
+    final S subView(final long fromElement, final boolean fromInclusive,
+                    final long toElement, final boolean toInclusive) {
+        if (descending ? fromElement < toElement : fromElement > toElement) {
+            throw new IllegalArgumentException("wrong range of subSet");
+        }
+        if (descending) {
+            return sub(search(toElement, toInclusive), search(fromElement, !fromInclusive));
+        }
+        return sub(search(fromElement, fromInclusive), search(toElement, !toInclusive));
+    }
+
+    final S headView(final long toElement, final boolean inclusive) {
+        return descending ? sub(search(toElement, inclusive), to) : sub(from, search(toElement, !inclusive));
+    }
+
+    final S tailView(final long fromElement, final boolean inclusive) {
+        return descending ? sub(from, search(fromElement, !inclusive)) : sub(search(fromElement, inclusive), to);
+    }
+
+    @Override
+    public S subSet(final T fromElement, final boolean fromInclusive, final T toElement, final boolean toInclusive) {
+        return subView(fromElement.longValue(), fromInclusive, toElement.longValue(), toInclusive);
+    }
+
+    @Override
+    public S headSet(final T toElement, final boolean inclusive) {
+        return headView(toElement.longValue(), inclusive);
+    }
+
+    @Override
+    public S tailSet(final T fromElement, final boolean inclusive) {
+        return tailView(fromElement.longValue(), inclusive);
+    }
+
+    @Override
+    public S subSet(final T fromElement, final T toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public S headSet(final T toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public S tailSet(final T fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        return descending ? Collections.reverseOrder() : null;
+    }
+
+    @Override
+    public T first() {
+        return element(firstIndex());
+    }
+
+    @Override
+    public T last() {
+        return element(lastIndex());
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+}
@@ -0,0 +1,17 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+/**
+ * Immutable index over sorted list used by {@link ArraySet} instead of {@link java.util.Collections#binarySearch}.
+ *
+ * @author Yaroslav Ilin
+ */
+
+interface SearchIndex<T> {
+    /**
+     * Search key in indexed list.
+     *
+     * @param key key
+     * @return index of key, if it is present, otherwise {@code (-(insertion point) - 1)}
+     */
+    int search(T key);
+}
@@ -0,0 +1,61 @@
+package info.kgeorgiy.ja.ilyin.arrayset;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Search strategy of {@link ArraySet}.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public enum SearchMode {
+    /**
+     * Binary search over sorted list, no additional memory.
+     */
+    BINARY {
+        @Override
+        <T> SearchIndex<T> index(final List<T> sorted, final Comparator<? super T> comparator) {
+            return null;
+        }
+    },
+    /**
+     * Search over copy of naturally ordered {@code Integer}, {@code Long}, {@code Short} or {@code Byte} keys
+     * in Eytzinger layout, one {@code long} and one {@code int} more per element, binary search for other elements.
+     * Fastest for small sets, but without prefetch each of last probes misses cache on sets larger than cache.
+     */
+    EYTZINGER {
+        @Override
+        <T> SearchIndex<T> index(final List<T> sorted, final Comparator<? super T> comparator) {
+            return EytzingerIndex.of(sorted, comparator);
+        }
+    },
+    /**
+     * Search over copy of naturally ordered {@code Integer}, {@code Long}, {@code Short} or {@code Byte} keys
+     * in static B-tree with cache line nodes, one {@code long} and one {@code int} more per element,
+     * binary search for other elements. Touches one cache line per level of tree, for sets much larger than cache.
+     */
+    BTREE {
+        @Override
+        <T> SearchIndex<T> index(final List<T> sorted, final Comparator<? super T> comparator) {
+            return BTreeIndex.of(sorted, comparator);
+        }
+    },
+    /**
+     * Interpolation search over copy of naturally ordered {@code Integer}, {@code Long}, {@code Short} or {@code Byte} keys,
+     * one {@code long} more per element. Few probes on evenly spread keys, binary search for other elements.
+     */
+    INTERPOLATION {
+        @Override
+        <T> SearchIndex<T> index(final List<T> sorted, final Comparator<? super T> comparator) {
+            return InterpolationIndex.of(sorted, comparator);
+        }
+    };
+
+    /**
+     * Build index of sorted list.
+     *
+     * @return index or {@code null} for binary search over list itself
+     */
+    abstract <T> SearchIndex<T> index(List<T> sorted, Comparator<? super T> comparator);
+}
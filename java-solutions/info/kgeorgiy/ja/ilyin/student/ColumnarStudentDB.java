@@ -0,0 +1,422 @@
+package info.kgeorgiy.ja.ilyin.student;
+
+import info.kgeorgiy.java.advanced.student.*;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * {@link StudentDB} with columns of one roster: ids, codes of first names, last names and groups in {@code int} arrays,
+ * order of rows by name and sorted dictionaries of names, so each distinct name is stored once
+ * and order of codes is order of names. Students are not kept: roster is referenced weakly
+ * and students returned by queries are rebuilt from columns, so storage takes 20 bytes per student and dictionaries.
+ * Queries about roster, while it is reachable, or about {@link #getStudents()} are answered by columns,
+ * queries about other collections are answered by {@link StudentDB}.
+ * Roster must not be modified after construction.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class ColumnarStudentDB extends StudentDB {
+    private static final GroupName[] GROUPS = GroupName.values();
+
+    private final Reference<Collection<Student>> roster;
+    private final List<Student> students = new Rows();
+    private final int[] ids;
+    private final int[] firstNames;
+    private final int[] lastNames;
+    private final int[] groups;
+    private final String[] firstNameValues;
+    private final String[] lastNameValues;
+    private final int[] byName;
+
+    /**
+     * Split roster into columns.
+     *
+     * @param roster students to store
+     */
+    public ColumnarStudentDB(final Collection<Student> roster) {
+        this.roster = new WeakReference<>(roster);
+        final int size = roster.size();
+        this.ids = new int[size];
+        this.groups = new int[size];
+        final String[] first = new String[size];
+        final String[] last = new String[size];
+        int i = 0;
+        for (final Student student : roster) {
+            ids[i] = student.getId();
+            groups[i] = student.getGroup().ordinal();
+            first[i] = student.getFirstName();
+            last[i] = student.getLastName();
+            i++;
+        }
+        this.firstNameValues = dictionary(first);
+        this.firstNames = encode(first, firstNameValues);
+        this.lastNameValues = dictionary(last);
+        this.lastNames = encode(last, lastNameValues);
+        this.byName = orderByName();
+    }
+
+    // codes are ordered as names, so rows are compared as students by ORDERED_BY_NAME, equal ones keep order
+    private int[] orderByName() {
+        final Integer[] rows = new Integer[ids.length];
+        Arrays.setAll(rows, row -> row);
+        Arrays.sort(rows, Comparator.<Integer>comparingInt(row -> -lastNames[row])
+                .thenComparingInt(row -> -firstNames[row])
+                .thenComparingInt(row -> ids[row]));
+        return Arrays.stream(rows).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static String[] dictionary(final String[] values) {
+        return new TreeSet<>(Arrays.asList(values)).toArray(new String[0]);
+    }
+
+    private static int[] encode(final String[] values, final String[] dictionary) {
+        final Map<String, Integer> codes = new HashMap<>();
+        for (int i = 0; i < dictionary.length; i++) {
+            codes.put(dictionary[i], i);
+        }
+        final int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = codes.get(values[i]);
+        }
+        return result;
+    }
+
+    private String fullName(final int row) {
+        return firstNameValues[firstNames[row]] + " " + lastNameValues[lastNames[row]];
+    }
+
+    private Student student(final int row) {
+        return new Student(ids[row], firstNameValues[firstNames[row]], lastNameValues[lastNames[row]],
+                GROUPS[groups[row]]);
+    }
+
+    private List<Student> students(final int[] rows, final int size) {
+        final List<Student> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(student(rows[i]));
+        }
+        return result;
+    }
+
+    private boolean isRoster(final Collection<Student> students) {
+        return students == this.students || students != null && students == roster.get();
+    }
+
+    /**
+     * Students of roster rebuilt from columns, roster itself may be dropped after construction.
+     *
+     * @return unmodifiable list, queries about it are answered by columns
+     */
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    // ids with rows are sorted as primitive longs, as in StudentDB
+    private int[] orderById() {
+        final long[] keys = new long[ids.length];
+        for (int row = 0; row < ids.length; row++) {
+            keys[row] = (long) ids[row] << 32 | row;
+        }
+        Arrays.sort(keys);
+        final int[] rows = new int[ids.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Student> sortStudentsById(final Collection<Student> students) {
+        return isRoster(students) ? students(orderById(), ids.length) : super.sortStudentsById(students);
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(final Collection<Student> students) {
+        return isRoster(students) ? students(byName, ids.length) : super.sortStudentsByName(students);
+    }
+
+    private List<Student> findByName(final int[] column, final int code) {
+        if (code < 0) {
+            return new ArrayList<>();
+        }
+        final int[] rows = new int[ids.length];
+        int size = 0;
+        for (final int row : byName) {
+            if (column[row] == code) {
+                rows[size++] = row;
+            }
+        }
+        return students(rows, size);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(final Collection<Student> students, final String name) {
+        return isRoster(students) ? findByName(firstNames, Arrays.binarySearch(firstNameValues, name))
+                : super.findStudentsByFirstName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(final Collection<Student> students, final String name) {
+        return isRoster(students) ? findByName(lastNames, Arrays.binarySearch(lastNameValues, name))
+                : super.findStudentsByLastName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(final Collection<Student> students, final GroupName group) {
+        return isRoster(students) ? findByName(groups, group.ordinal()) : super.findStudentsByGroup(students, group);
+    }
+
+    // rows are split by group keeping their order, groups are in order of names
+    private List<Group> groupsOf(final int[] order) {
+        final int[] sizes = new int[GROUPS.length];
+        for (final int group : groups) {
+            sizes[group]++;
+        }
+        final List<List<Student>> members = new ArrayList<>(GROUPS.length);
+        for (final int size : sizes) {
+            members.add(new ArrayList<>(size));
+        }
+        for (final int row : order) {
+            members.get(groups[row]).add(student(row));
+        }
+        final List<Group> result = new ArrayList<>();
+        for (int group = 0; group < GROUPS.length; group++) {
+            if (sizes[group] > 0) {
+                result.add(new Group(GROUPS[group], members.get(group)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Group> getGroupsByName(final Collection<Student> students) {
+        return isRoster(students) ? groupsOf(byName) : super.getGroupsByName(students);
+    }
+
+    @Override
+    public List<Group> getGroupsById(final Collection<Student> students) {
+        return isRoster(students) ? groupsOf(orderById()) : super.getGroupsById(students);
+    }
+
+    @Override
+    public GroupName getLargestGroup(final Collection<Student> students) {
+        if (!isRoster(students)) {
+            return super.getLargestGroup(students);
+        }
+        final int[] counts = new int[GROUPS.length];
+        for (final int group : groups) {
+            counts[group]++;
+        }
+        // of groups with equal sizes the last one
+        int best = -1;
+        for (int group = 0; group < counts.length; group++) {
+            if (counts[group] > 0 && (best < 0 || counts[group] >= counts[best])) {
+                best = group;
+            }
+        }
+        return best < 0 ? null : GROUPS[best];
+    }
+
+    @Override
+    public GroupName getLargestGroupFirstName(final Collection<Student> students) {
+        if (!isRoster(students)) {
+            return super.getLargestGroupFirstName(students);
+        }
+        final BitSet[] seen = new BitSet[GROUPS.length];
+        final int[] counts = new int[GROUPS.length];
+        for (int row = 0; row < groups.length; row++) {
+            final int group = groups[row];
+            if (seen[group] == null) {
+                seen[group] = new BitSet(firstNameValues.length);
+            }
+            if (!seen[group].get(firstNames[row])) {
+                seen[group].set(firstNames[row]);
+                counts[group]++;
+            }
+        }
+        // of groups with equal number of names the first one
+        int best = -1;
+        for (int group = 0; group < counts.length; group++) {
+            if (counts[group] > 0 && (best < 0 || counts[group] > counts[best])) {
+                best = group;
+            }
+        }
+        return best < 0 ? null : GROUPS[best];
+    }
+
+    @Override
+    public String getMostPopularName(final Collection<Student> students) {
+        if (!isRoster(students) || GROUPS.length > Long.SIZE) {
+            return super.getMostPopularName(students);
+        }
+        final long[] masks = new long[firstNameValues.length];
+        for (int row = 0; row < groups.length; row++) {
+            masks[firstNames[row]] |= 1L << groups[row];
+        }
+        // of names in equal number of groups the last one
+        int best = -1;
+        for (int name = 0; name < masks.length; name++) {
+            if (best < 0 || Long.bitCount(masks[name]) >= Long.bitCount(masks[best])) {
+                best = name;
+            }
+        }
+        return best < 0 ? "" : firstNameValues[best];
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(final Collection<Student> students, final GroupName group) {
+        if (!isRoster(students)) {
+            return super.findStudentNamesByGroup(students, group);
+        }
+        final int[] minFirstName = new int[lastNameValues.length];
+        Arrays.fill(minFirstName, -1);
+        for (int row = 0; row < groups.length; row++) {
+            if (groups[row] == group.ordinal()) {
+                final int last = lastNames[row];
+                if (minFirstName[last] < 0 || firstNames[row] < minFirstName[last]) {
+                    minFirstName[last] = firstNames[row];
+                }
+            }
+        }
+        final Map<String, String> result = new HashMap<>();
+        for (int last = 0; last < minFirstName.length; last++) {
+            if (minFirstName[last] >= 0) {
+                result.put(lastNameValues[last], firstNameValues[minFirstName[last]]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getFirstNames(final List<Student> students) {
+        if (!isRoster(students)) {
+            return super.getFirstNames(students);
+        }
+        final List<String> result = new ArrayList<>(firstNames.length);
+        for (final int name : firstNames) {
+            result.add(firstNameValues[name]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getLastNames(final List<Student> students) {
+        if (!isRoster(students)) {
+            return super.getLastNames(students);
+        }
+        final List<String> result = new ArrayList<>(lastNames.length);
+        for (final int name : lastNames) {
+            result.add(lastNameValues[name]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<GroupName> getGroups(final List<Student> students) {
+        if (!isRoster(students)) {
+            return super.getGroups(students);
+        }
+        final List<GroupName> result = new ArrayList<>(groups.length);
+        for (final int group : groups) {
+            result.add(GROUPS[group]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getFullNames(final List<Student> students) {
+        if (!isRoster(students)) {
+            return super.getFullNames(students);
+        }
+        final List<String> result = new ArrayList<>(ids.length);
+        for (int row = 0; row < ids.length; row++) {
+            result.add(fullName(row));
+        }
+        return result;
+    }
+
+    @Override
+    public Set<String> getDistinctFirstNames(final List<Student> students) {
+        return isRoster(students) ? new TreeSet<>(Arrays.asList(firstNameValues))
+                : super.getDistinctFirstNames(students);
+    }
+
+    @Override
+    public String getMaxStudentFirstName(final List<Student> students) {
+        if (!isRoster(students)) {
+            return super.getMaxStudentFirstName(students);
+        }
+        // of students with equal ids the first one
+        int best = -1;
+        for (int row = 0; row < ids.length; row++) {
+            if (best < 0 || ids[row] > ids[best]) {
+                best = row;
+            }
+        }
+        return best < 0 ? "" : firstNameValues[firstNames[best]];
+    }
+
+    @Override
+    public List<String> getFirstNames(final Collection<Student> students, final int[] indices) {
+        if (!isRoster(students)) {
+            return super.getFirstNames(students, indices);
+        }
+        final List<String> result = new ArrayList<>(indices.length);
+        for (final int index : indices) {
+            result.add(firstNameValues[firstNames[index]]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getLastNames(final Collection<Student> students, final int[] indices) {
+        if (!isRoster(students)) {
+            return super.getLastNames(students, indices);
+        }
+        final List<String> result = new ArrayList<>(indices.length);
+        for (final int index : indices) {
+            result.add(lastNameValues[lastNames[index]]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<GroupName> getGroups(final Collection<Student> students, final int[] indices) {
+        if (!isRoster(students)) {
+            return super.getGroups(students, indices);
+        }
+        final List<GroupName> result = new ArrayList<>(indices.length);
+        for (final int index : indices) {
+            result.add(GROUPS[groups[index]]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getFullNames(final Collection<Student> students, final int[] indices) {
+        if (!isRoster(students)) {
+            return super.getFullNames(students, indices);
+        }
+        final List<String> result = new ArrayList<>(indices.length);
+        for (final int index : indices) {
+            result.add(fullName(index));
+        }
+        return result;
+    }
+
+    private class Rows extends AbstractList<Student> implements RandomAccess {
+        @Override
+        public Student get(final int index) {
+            Objects.checkIndex(index, ids.length);
+            return student(index);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+}
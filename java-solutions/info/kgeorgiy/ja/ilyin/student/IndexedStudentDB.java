@@ -0,0 +1,106 @@
+package info.kgeorgiy.ja.ilyin.student;
+
+import info.kgeorgiy.java.advanced.student.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * {@link StudentDB} with indexes of one roster: students are indexed by position, sorted by name and by id
+ * and grouped by first name, last name and group once, so queries about roster
+ * take time proportional to size of result and do not sort.
+ * Queries about other collections are answered by {@link StudentDB}.
+ * Roster must not be modified after construction.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class IndexedStudentDB extends StudentDB {
+    private final Collection<Student> roster;
+    private final List<Student> byIndex;
+    private final List<Student> byName;
+    private final List<Student> byId;
+    // lists in indexes are ordered by name
+    private final Map<String, List<Student>> byFirstName;
+    private final Map<String, List<Student>> byLastName;
+    private final Map<GroupName, List<Student>> byGroup;
+    private final List<Group> groupsByName;
+
+    /**
+     * Index roster.
+     *
+     * @param roster students to index
+     */
+    public IndexedStudentDB(final Collection<Student> roster) {
+        this.roster = roster;
+        this.byIndex = super.indexed(roster);
+        final List<Student> sorted = new ArrayList<>(roster);
+        sorted.sort(ORDERED_BY_NAME);
+        this.byName = Collections.unmodifiableList(sorted);
+        final List<Student> ids = new ArrayList<>(roster);
+        ids.sort(Comparator.comparingInt(Student::getId));
+        this.byId = Collections.unmodifiableList(ids);
+        this.byFirstName = index(Student::getFirstName);
+        this.byLastName = index(Student::getLastName);
+        this.byGroup = index(Student::getGroup);
+
+        final List<Group> groups = new ArrayList<>();
+        for (final Map.Entry<GroupName, List<Student>> entry : new TreeMap<>(byGroup).entrySet()) {
+            groups.add(new Group(entry.getKey(), entry.getValue()));
+        }
+        this.groupsByName = Collections.unmodifiableList(groups);
+    }
+
+    @Override
+    List<Student> indexed(final Collection<Student> students) {
+        return students == roster ? byIndex : super.indexed(students);
+    }
+
+    private <K> Map<K, List<Student>> index(final Function<Student, K> key) {
+        final Map<K, List<Student>> index = new HashMap<>();
+        for (final Student student : byName) {
+            index.computeIfAbsent(key.apply(student), k -> new ArrayList<>()).add(student);
+        }
+        index.replaceAll((k, students) -> Collections.unmodifiableList(students));
+        return index;
+    }
+
+    private static <K> List<Student> find(final Map<K, List<Student>> index, final K key) {
+        return new ArrayList<>(index.getOrDefault(key, List.of()));
+    }
+
+    @Override
+    public List<Student> sortStudentsById(final Collection<Student> students) {
+        return students == roster ? new ArrayList<>(byId) : super.sortStudentsById(students);
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(final Collection<Student> students) {
+        return students == roster ? new ArrayList<>(byName) : super.sortStudentsByName(students);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(final Collection<Student> students, final String name) {
+        return students == roster ? find(byFirstName, name) : super.findStudentsByFirstName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(final Collection<Student> students, final String name) {
+        return students == roster ? find(byLastName, name) : super.findStudentsByLastName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(final Collection<Student> students, final GroupName group) {
+        return students == roster ? find(byGroup, group) : super.findStudentsByGroup(students, group);
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(final Collection<Student> students, final GroupName group) {
+        return super.findStudentNamesByGroup(students == roster ? byGroup.getOrDefault(group, List.of()) : students, group);
+    }
+
+    @Override
+    public List<Group> getGroupsByName(final Collection<Student> students) {
+        return students == roster ? new ArrayList<>(groupsByName) : super.getGroupsByName(students);
+    }
+}
@@ -0,0 +1,188 @@
+package info.kgeorgiy.ja.ilyin.student;
+
+import info.kgeorgiy.ja.ilyin.concurrent.IterativeParallelism;
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+import info.kgeorgiy.java.advanced.student.*;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * {@link StudentDB} answering queries about large collections in several threads with {@link IterativeParallelism}.
+ * Counting queries are collected by {@link IterativeParallelism#map}, each part into its own container,
+ * search and sort queries filter in parallel and sort with {@link Arrays#parallelSort}.
+ * Collections smaller than {@value #THRESHOLD} are processed sequentially by {@link StudentDB}.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class ParallelStudentDB extends StudentDB {
+    private static final int THRESHOLD = 1 << 14;
+    private static final GroupName[] GROUPS = GroupName.values();
+
+    private final int threads;
+    private final IterativeParallelism parallelism;
+
+    /**
+     * Create database using new threads for each query.
+     *
+     * @param threads number of threads
+     */
+    public ParallelStudentDB(final int threads) {
+        this(threads, new IterativeParallelism());
+    }
+
+    /**
+     * Create database using threads of mapper.
+     *
+     * @param threads number of parts of collection
+     * @param mapper  mapper to run parts
+     */
+    public ParallelStudentDB(final int threads, final ParallelMapper mapper) {
+        this(threads, new IterativeParallelism(mapper));
+    }
+
+    private ParallelStudentDB(final int threads, final IterativeParallelism parallelism) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("number of threads should be positive: " + threads);
+        }
+        this.threads = threads;
+        this.parallelism = parallelism;
+    }
+
+    private boolean sequential(final Collection<Student> students) {
+        return threads == 1 || students.size() < THRESHOLD;
+    }
+
+    private static List<Student> asList(final Collection<Student> students) {
+        return students instanceof List ? (List<Student>) students : new ArrayList<>(students);
+    }
+
+    // each part is accumulated into its own container of collector, containers are merged in order of parts
+    private <A, R> R collect(final Collection<Student> students, final Collector<Student, A, R> collector) {
+        final List<Student> list = asList(students);
+        final List<List<Student>> parts = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            parts.add(list.subList((int) ((long) list.size() * i / threads), (int) ((long) list.size() * (i + 1) / threads)));
+        }
+        final Supplier<A> supplier = collector.supplier();
+        final BiConsumer<A, Student> accumulator = collector.accumulator();
+        try {
+            final List<A> containers = parallelism.map(threads, parts, part -> {
+                final A container = supplier.get();
+                for (final Student student : part) {
+                    accumulator.accept(container, student);
+                }
+                return container;
+            });
+            return collector.finisher().apply(containers.stream().reduce(collector.combiner()).orElseThrow());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while querying students", e);
+        }
+    }
+
+    private static <K, V> Collector<Student, ?, Map<K, Integer>> distinctCounts(final Function<Student, K> key,
+                                                                            final Function<Student, V> value) {
+        return Collectors.groupingBy(key,
+                Collectors.collectingAndThen(Collectors.mapping(value, Collectors.toSet()), Set::size));
+    }
+
+    // same order of keys with equal counts as in StudentDB
+    private static <K> K max(final Map<K, Integer> counts, final Comparator<K> ties, final K orElse) {
+        return counts.entrySet().stream()
+                .max(Map.Entry.<K, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey(ties)))
+                .map(Map.Entry::getKey)
+                .orElse(orElse);
+    }
+
+    @Override
+    public GroupName getLargestGroup(final Collection<Student> students) {
+        if (sequential(students)) {
+            return super.getLargestGroup(students);
+        }
+        final Map<GroupName, Integer> counts = collect(students, Collector.of(
+                () -> new int[GROUPS.length],
+                (sizes, student) -> sizes[student.getGroup().ordinal()]++,
+                (a, b) -> {
+                    Arrays.setAll(a, i -> a[i] + b[i]);
+                    return a;
+                },
+                sizes -> {
+                    final Map<GroupName, Integer> result = new EnumMap<>(GroupName.class);
+                    for (int i = 0; i < sizes.length; i++) {
+                        if (sizes[i] > 0) {
+                            result.put(GROUPS[i], sizes[i]);
+                        }
+                    }
+                    return result;
+                }));
+        return max(counts, Comparator.naturalOrder(), null);
+    }
+
+    @Override
+    public GroupName getLargestGroupFirstName(final Collection<Student> students) {
+        if (sequential(students)) {
+            return super.getLargestGroupFirstName(students);
+        }
+        final Map<GroupName, Integer> names = collect(students, distinctCounts(Student::getGroup, Student::getFirstName));
+        return max(names, Comparator.<GroupName>naturalOrder().reversed(), null);
+    }
+
+    @Override
+    public String getMostPopularName(final Collection<Student> students) {
+        if (sequential(students)) {
+            return super.getMostPopularName(students);
+        }
+        final Map<String, Integer> groups = collect(students, distinctCounts(Student::getFirstName, Student::getGroup));
+        return max(groups, Comparator.naturalOrder(), "");
+    }
+
+    private List<Student> sort(final Collection<Student> students, final Comparator<Student> comparator) {
+        final Student[] sorted = students.toArray(new Student[0]);
+        Arrays.parallelSort(sorted, comparator);
+        return new ArrayList<>(Arrays.asList(sorted));
+    }
+
+    @Override
+    public List<Student> sortStudentsById(final Collection<Student> students) {
+        return sequential(students) ? super.sortStudentsById(students) : sort(students, Comparator.comparingInt(Student::getId));
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(final Collection<Student> students) {
+        return sequential(students) ? super.sortStudentsByName(students) : sort(students, ORDERED_BY_NAME);
+    }
+
+    private List<Student> find(final Collection<Student> students, final Predicate<Student> check) {
+        try {
+            return sort(parallelism.filter(threads, asList(students), check), ORDERED_BY_NAME);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while querying students", e);
+        }
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(final Collection<Student> students, final String name) {
+        return sequential(students) ? super.findStudentsByFirstName(students, name)
+                : find(students, student -> student.getFirstName().equals(name));
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(final Collection<Student> students, final String name) {
+        return sequential(students) ? super.findStudentsByLastName(students, name)
+                : find(students, student -> student.getLastName().equals(name));
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(final Collection<Student> students, final GroupName group) {
+        return sequential(students) ? super.findStudentsByGroup(students, group)
+                : find(students, student -> student.getGroup().equals(group));
+    }
+}
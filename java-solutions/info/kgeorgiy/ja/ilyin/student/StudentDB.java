@@ -3,6 +3,7 @@ package info.kgeorgiy.ja.ilyin.student;
 import info.kgeorgiy.java.advanced.student.*;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -13,24 +14,57 @@ import java.util.stream.Stream;
  */
 
 public class StudentDB implements AdvancedQuery {
-    private final static Comparator<Student> ORDERED_BY_NAME = Comparator
+    final static Comparator<Student> ORDERED_BY_NAME = Comparator
             .comparing(Student::getLastName, Comparator.reverseOrder())
             .thenComparing(Student::getFirstName, Comparator.reverseOrder())
             .thenComparingInt(Student::getId);
 
     private final static Comparator<Group> GROUP_COMPARATOR = Comparator.comparing(Group::getName);
 
+    private final static GroupName[] GROUP_NAMES = GroupName.values();
+
     private Stream<Map.Entry<GroupName, List<Student>>> getStudentsStreamByGroup(Collection<Student> students) {
         return students.stream()
                 .collect(Collectors.groupingBy(Student::getGroup))
                 .entrySet().stream();
     }
 
-    private List<Group> getGroupsBy(Collection<Student> students, Comparator<Student> comparator) {
-        return getStudentsStreamByGroup(students)
-                .map(x -> new Group(x.getKey(), x.getValue().stream().sorted(comparator).collect(Collectors.toList())))
-                .sorted(GROUP_COMPARATOR)
-                .collect(Collectors.toList());
+    // students are split by group in one pass, then each group is sorted, groups are in order of names
+    private List<Group> getGroupsBy(Collection<Student> students, Consumer<Student[]> sorter) {
+        final int[] sizes = new int[GROUP_NAMES.length];
+        for (Student student : students) {
+            sizes[student.getGroup().ordinal()]++;
+        }
+        final Student[][] groups = new Student[GROUP_NAMES.length][];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = new Student[sizes[i]];
+            sizes[i] = 0;
+        }
+        for (Student student : students) {
+            final int group = student.getGroup().ordinal();
+            groups[group][sizes[group]++] = student;
+        }
+        final List<Group> result = new ArrayList<>();
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i].length > 0) {
+                sorter.accept(groups[i]);
+                result.add(new Group(GROUP_NAMES[i], new ArrayList<>(Arrays.asList(groups[i]))));
+            }
+        }
+        return result;
+    }
+
+    // ids with positions are sorted as primitive longs, equal ids keep order
+    private static void sortById(Student[] students) {
+        final long[] keys = new long[students.length];
+        for (int i = 0; i < students.length; i++) {
+            keys[i] = (long) students[i].getId() << 32 | i;
+        }
+        Arrays.sort(keys);
+        final Student[] copy = students.clone();
+        for (int i = 0; i < students.length; i++) {
+            students[i] = copy[(int) keys[i]];
+        }
     }
 
     private Function<Student, String> getFullName() {
@@ -39,12 +73,12 @@ public class StudentDB implements AdvancedQuery {
 
     @Override
     public List<Group> getGroupsByName(Collection<Student> students) {
-        return getGroupsBy(students, ORDERED_BY_NAME);
+        return getGroupsBy(students, group -> Arrays.sort(group, ORDERED_BY_NAME));
     }
 
     @Override
     public List<Group> getGroupsById(Collection<Student> students) {
-        return getGroupsBy(students, Comparator.comparingInt(Student::getId));
+        return getGroupsBy(students, StudentDB::sortById);
     }
 
     private GroupName getMaxGroupBy(Collection<Student> students, Comparator<Group> comparator) {
@@ -174,9 +208,18 @@ public class StudentDB implements AdvancedQuery {
                                         student -> student.map(Student::getFirstName).orElse(null))));
     }
 
+    // students are copied only if collection has no fast access by index
+    List<Student> indexed(Collection<Student> students) {
+        if (students instanceof List && students instanceof RandomAccess) {
+            return (List<Student>) students;
+        }
+        return Arrays.asList(students.toArray(new Student[0]));
+    }
+
     private <T> List<T> getByInd(Collection<Student> students, Function<Student, T> f, int[] indeces) {
+        final List<Student> list = indexed(students);
         return Arrays.stream(indeces)
-                .mapToObj(new ArrayList<>(students)::get)
+                .mapToObj(list::get)
                 .map(f)
                 .collect(Collectors.toList());
     }
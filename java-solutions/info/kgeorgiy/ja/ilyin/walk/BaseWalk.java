@@ -1,37 +1,164 @@
 package info.kgeorgiy.ja.ilyin.walk;
 
+import javax.management.JMException;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Yaroslav Ilin
  */
 
 public class BaseWalk {
-    private static void visit(String path, WalkVisitor visitor) throws WalkException {
+    private static void visit(String path, WalkVisitor visitor, PrefetchingWalker walker) throws WalkException {
         try {
             try {
-                Files.walkFileTree(Path.of(path), visitor);
+                if (walker != null) {
+                    walker.walk(Path.of(path), visitor);
+                } else {
+                    Files.walkFileTree(Path.of(path), visitor);
+                }
             } catch (InvalidPathException | SecurityException e) {
-                visitor.write(0, path);
+                visitor.writeFailed(path);
             }
         } catch (IOException e) {
             throw new WalkException("filed to write output file", e);
         }
     }
 
-    private static void process(Path inputPath, Path outputPath, boolean recursive) throws WalkException {
+    private static PrefetchingWalker newWalker(WalkOptions options) {
+        return options.getPrefetch() > 0
+                ? new PrefetchingWalker(PrefetchingWalker.FileTreeAccess.FILES, options.getPrefetch()) : null;
+    }
+
+    private static void visitAll(BufferedReader inputFiles, WalkVisitor visitor, WalkOptions options)
+            throws IOException, WalkException {
+        PrefetchingWalker walker = newWalker(options);
+        try {
+            String filePath;
+            while ((filePath = inputFiles.readLine()) != null) {
+                visit(filePath, visitor, walker);
+            }
+        } finally {
+            if (walker != null) {
+                walker.close();
+            }
+        }
+    }
+
+    private static void findDuplicates(BufferedReader inputFiles, HashLineWriter output, boolean recursive,
+                                       WalkOptions options, FileHasher hasher) throws IOException {
+        DuplicateFinder finder = new DuplicateFinder(recursive, hasher);
+        PrefetchingWalker walker = newWalker(options);
+        try {
+            String filePath;
+            while ((filePath = inputFiles.readLine()) != null) {
+                finder.add(filePath, walker);
+            }
+        } finally {
+            if (walker != null) {
+                walker.close();
+            }
+        }
+        finder.report(output, options.getThreads());
+    }
+
+    private static HashCache loadCache(WalkOptions options) throws WalkException {
+        if (options.getCache() == null) {
+            return null;
+        }
+        try {
+            return HashCache.load(options.getCache(), options.getDigestName());
+        } catch (IOException | SecurityException e) {
+            throw new WalkException("failed to read cache (" + options.getCache() + ")", e);
+        }
+    }
+
+    private static void saveCache(HashCache cache, WalkOptions options) throws WalkException {
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.save(options.getCache());
+        } catch (IOException | SecurityException e) {
+            throw new WalkException("failed to save cache (" + options.getCache() + ")", e);
+        }
+    }
+
+    private static void process(Path inputPath, Path outputPath, boolean recursive, WalkOptions options) throws WalkException {
+        HashCache cache = loadCache(options);
+        ForkJoinPool treePool = options.isTree() ? new ForkJoinPool() : null;
+        WalkMetrics metrics = new WalkMetrics();
+        ScheduledExecutorService reporter = startReporting(metrics, options);
+        try {
+            process(inputPath, outputPath, recursive, options, new FileHasher(options.getHash(), cache, treePool, metrics));
+        } finally {
+            if (treePool != null) {
+                treePool.shutdownNow();
+            }
+            stopReporting(reporter, metrics, options);
+        }
+        saveCache(cache, options);
+    }
+
+    private static ScheduledExecutorService startReporting(WalkMetrics metrics, WalkOptions options) throws WalkException {
+        if (options.isJmx()) {
+            try {
+                metrics.register();
+            } catch (JMException e) {
+                throw new WalkException("failed to register metrics", e);
+            }
+        }
+        if (options.getProgress() == 0) {
+            return null;
+        }
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> System.err.println(metrics.getReport()),
+                options.getProgress(), options.getProgress(), TimeUnit.SECONDS);
+        return reporter;
+    }
+
+    private static void stopReporting(ScheduledExecutorService reporter, WalkMetrics metrics, WalkOptions options) {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            System.err.println(metrics.getReport());
+        }
+        if (options.isJmx()) {
+            try {
+                metrics.unregister();
+            } catch (JMException e) {
+                System.err.println("failed to unregister metrics: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void process(Path inputPath, Path outputPath, boolean recursive, WalkOptions options,
+                                FileHasher hasher) throws WalkException {
         try (BufferedReader inputFiles = Files.newBufferedReader(inputPath)) {
-            try (BufferedWriter output = Files.newBufferedWriter(outputPath)) {
+            try (HashLineWriter output = new HashLineWriter(FileChannel.open(outputPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
                 try {
-                    String filePath;
-                    WalkVisitor visitor = new WalkVisitor(output, recursive);
-                    while ((filePath = inputFiles.readLine()) != null) {
-                        visit(filePath, visitor);
+                    if (options.isDedup()) {
+                        findDuplicates(inputFiles, output, recursive, options, hasher);
+                    } else if (options.getThreads() > 1) {
+                        try (ParallelWalkVisitor visitor = new ParallelWalkVisitor(output, recursive, hasher,
+                                options.getThreads())) {
+                            visitAll(inputFiles, visitor, options);
+                        }
+                    } else {
+                        visitAll(inputFiles, new WalkVisitor(output, recursive, hasher), options);
                     }
                 } catch (IOException e) {
                     throw new WalkException("failed reading input file", e);
@@ -48,7 +175,7 @@ public class BaseWalk {
         }
     }
 
-    private static Path toPath(String s) throws WalkException {
+    static Path toPath(String s) throws WalkException {
         try {
             return Path.of(s);
         } catch (InvalidPathException e) {
@@ -58,9 +185,10 @@ public class BaseWalk {
 
     public static void run(String[] args, boolean recursive) {
         try {
-            if (args == null || args.length != 2 || args[0] == null || args[1] == null) {
-                throw new WalkException("expected 2 not null arguments for input and output file");
+            if (args == null || args.length < 2 || args[0] == null || args[1] == null) {
+                throw new WalkException("expected not null arguments for input and output file, " + WalkOptions.USAGE);
             }
+            WalkOptions options = WalkOptions.parse(args, 2);
             Path inputPath = toPath(args[0]);
             Path outputPath = toPath(args[1]);
             try {
@@ -73,7 +201,7 @@ public class BaseWalk {
             } catch (SecurityException e) {
                 throw new WalkException("don't have permissions to create not-exists output directory", e);
             }
-            process(inputPath, outputPath, recursive);
+            process(inputPath, outputPath, recursive, options);
         } catch (WalkException e) {
             System.err.println(e.getMessage());
         }
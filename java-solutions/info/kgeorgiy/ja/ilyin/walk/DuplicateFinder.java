@@ -0,0 +1,239 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds groups of files with equal content.
+ * Files are grouped by size first, only files with non-unique size are hashed,
+ * and files with equal hashes are compared byte by byte.
+ * Empty files are not reported, file reachable by several paths or hard links is taken once.
+ * Cached hashes are reused, and cache entries of all visited files are kept for next save.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class DuplicateFinder extends SimpleFileVisitor<Path> {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final boolean recursive;
+    private final FileHasher hasher;
+    private final Set<Object> seen = new HashSet<>();
+    private final Map<Long, List<Candidate>> bySize = new LinkedHashMap<>();
+    private final ByteBuffer first = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer second = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Create finder.
+     *
+     * @param recursive visit directories recursively
+     * @param hasher    hasher of candidates
+     */
+    public DuplicateFinder(boolean recursive, FileHasher hasher) {
+        this.recursive = recursive;
+        this.hasher = hasher;
+    }
+
+    /**
+     * Collect files of path, not existing and invalid paths are skipped.
+     *
+     * @param path file or directory
+     * @throws IOException if traversal failed
+     */
+    public void add(String path) throws IOException {
+        add(path, null);
+    }
+
+    /**
+     * Collect files of path by {@link PrefetchingWalker}, not existing and invalid paths are skipped.
+     *
+     * @param path   file or directory
+     * @param walker walker or {@code null} for {@link Files#walkFileTree}
+     * @throws IOException if traversal failed
+     */
+    public void add(String path, PrefetchingWalker walker) throws IOException {
+        try {
+            if (walker != null) {
+                walker.walk(Path.of(path), this);
+            } else {
+                Files.walkFileTree(Path.of(path), EnumSet.noneOf(FileVisitOption.class),
+                        recursive ? Integer.MAX_VALUE : 0, this);
+            }
+        } catch (InvalidPathException | SecurityException ignored) {
+        }
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        if (recursive) {
+            return FileVisitResult.CONTINUE;
+        }
+        // walker has no depth limit, directory is taken as file like walkFileTree does at depth 0
+        visitFile(dir, attrs);
+        return FileVisitResult.SKIP_SUBTREE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        hasher.getMetrics().visited();
+        if (!attrs.isRegularFile()) {
+            return FileVisitResult.CONTINUE;
+        }
+        // looked up even for files which are never hashed, so that their entries survive save
+        HashCache.Entry cached = hasher.findCached(file, attrs);
+        Object key = attrs.fileKey() != null ? attrs.fileKey() : file.toAbsolutePath().normalize();
+        if (attrs.size() > 0 && seen.add(key)) {
+            bySize.computeIfAbsent(attrs.size(), size -> new ArrayList<>()).add(new Candidate(file, attrs, cached));
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        hasher.getMetrics().visited();
+        hasher.getMetrics().failed();
+        return FileVisitResult.CONTINUE;
+    }
+
+    /**
+     * Write groups of duplicates as lines of hash and path, groups are separated by empty line.
+     *
+     * @param output  output to write groups
+     * @param threads number of hashing threads
+     * @throws IOException if writing failed
+     */
+    public void report(HashLineWriter output, int threads) throws IOException {
+        List<Candidate> candidates = new ArrayList<>();
+        for (List<Candidate> group : bySize.values()) {
+            if (group.size() > 1) {
+                candidates.addAll(group);
+            }
+        }
+        hashAll(candidates, threads);
+        for (List<Candidate> group : bySize.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            Map<Long, List<Candidate>> byHash = new LinkedHashMap<>();
+            for (Candidate candidate : group) {
+                byHash.computeIfAbsent(candidate.hash, hash -> new ArrayList<>()).add(candidate);
+            }
+            for (List<Candidate> sameHash : byHash.values()) {
+                if (sameHash.size() > 1) {
+                    for (List<Candidate> duplicates : confirm(sameHash)) {
+                        for (Candidate duplicate : duplicates) {
+                            output.write(duplicate.hash, duplicate.file.toString());
+                        }
+                        output.newLine();
+                    }
+                }
+            }
+        }
+    }
+
+    private void hashAll(List<Candidate> all, int threads) throws IOException {
+        List<Candidate> candidates = new ArrayList<>();
+        for (Candidate candidate : all) {
+            if (candidate.cached != null) {
+                candidate.hash = candidate.cached.getHash();
+            } else {
+                candidates.add(candidate);
+            }
+        }
+        if (threads == 1) {
+            for (Candidate candidate : candidates) {
+                candidate.hash = hasher.hash(candidate.file, candidate.attrs);
+            }
+            return;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                tasks.add(() -> {
+                    candidate.hash = hasher.hash(candidate.file, candidate.attrs);
+                    return null;
+                });
+            }
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while hashing candidates", e);
+        } catch (ExecutionException e) {
+            throw new IOException("failed to hash candidates", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private List<List<Candidate>> confirm(List<Candidate> sameHash) {
+        List<List<Candidate>> result = new ArrayList<>();
+        List<Candidate> rest = new ArrayList<>(sameHash);
+        while (rest.size() > 1) {
+            Candidate representative = rest.get(0);
+            List<Candidate> duplicates = new ArrayList<>(List.of(representative));
+            List<Candidate> other = new ArrayList<>();
+            for (Candidate candidate : rest.subList(1, rest.size())) {
+                (contentEquals(representative.file, candidate.file) ? duplicates : other).add(candidate);
+            }
+            if (duplicates.size() > 1) {
+                result.add(duplicates);
+            }
+            rest = other;
+        }
+        return result;
+    }
+
+    private boolean contentEquals(Path a, Path b) {
+        try (FileChannel x = FileChannel.open(a, StandardOpenOption.READ);
+             FileChannel y = FileChannel.open(b, StandardOpenOption.READ)) {
+            while (true) {
+                int read = fill(x, first);
+                if (read != fill(y, second)) {
+                    return false;
+                }
+                if (read == 0) {
+                    return true;
+                }
+                if (!first.equals(second)) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // read until buffer is full or end of file
+        }
+        buffer.flip();
+        return buffer.remaining();
+    }
+
+    private static class Candidate {
+        private final Path file;
+        private final BasicFileAttributes attrs;
+        private final HashCache.Entry cached;
+        private long hash;
+
+        private Candidate(Path file, BasicFileAttributes attrs, HashCache.Entry cached) {
+            this.file = file;
+            this.attrs = attrs;
+            this.cached = cached;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads file content for hashing without intermediate copies.
+ * Files smaller than {@link #MAP_THRESHOLD} are read into a per-thread direct buffer,
+ * larger ones are memory-mapped by chunks.
+ *
+ * @author Yaroslav Ilin
+ */
+
+final class FileHashEngine {
+    static final long MAP_THRESHOLD = 1 << 20;
+    private static final long MAP_CHUNK = 1 << 30;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private FileHashEngine() {
+    }
+
+    static long hash(Path file, HashFunction function, WalkMetrics metrics) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            function.reset();
+            long position = 0;
+            long size = channel.size();
+            long time = System.nanoTime();
+            if (size >= MAP_THRESHOLD) {
+                while (position < size) {
+                    MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(MAP_CHUNK, size - position));
+                    time = update(function, chunk, metrics, time);
+                    position += chunk.capacity();
+                }
+                channel.position(position);
+            }
+            // also reads whatever was appended after mapping, as well as files with unknown size
+            ByteBuffer buffer = BUFFER.get();
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                time = update(function, buffer, metrics, time);
+                buffer.clear();
+            }
+            metrics.io(System.nanoTime() - time);
+            return function.digest();
+        }
+    }
+
+    /**
+     * Hash data, accounting time since {@code time} as I/O.
+     *
+     * @return time when hashing finished
+     */
+    static long update(HashFunction function, ByteBuffer data, WalkMetrics metrics, long time) {
+        long read = System.nanoTime();
+        metrics.io(read - time);
+        int size = data.remaining();
+        function.update(data);
+        long hashed = System.nanoTime();
+        metrics.hashed(size, hashed - read);
+        return hashed;
+    }
+}
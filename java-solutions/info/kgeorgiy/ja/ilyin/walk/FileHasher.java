@@ -0,0 +1,117 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Hashes files for {@link WalkVisitor}, may be used from many threads.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class FileHasher {
+    private final ThreadLocal<HashFunction> hashFunction;
+    private final HashCache cache;
+    private final ForkJoinPool treePool;
+    private final WalkMetrics metrics;
+
+    /**
+     * Create hasher of whole file content.
+     *
+     * @param hashFunction hash function factory, called once per hashing thread
+     */
+    public FileHasher(Supplier<? extends HashFunction> hashFunction) {
+        this(hashFunction, null, null, new WalkMetrics());
+    }
+
+    /**
+     * Create hasher.
+     *
+     * @param hashFunction hash function factory, called once per hashing thread
+     * @param cache        hashes of previous walk or {@code null}
+     * @param treePool     pool to hash chunks of files in {@link TreeHashEngine tree mode} or {@code null}
+     *                     to hash whole content; digests of two modes are different
+     * @param metrics      metrics to update
+     */
+    public FileHasher(Supplier<? extends HashFunction> hashFunction, HashCache cache, ForkJoinPool treePool,
+                      WalkMetrics metrics) {
+        this.hashFunction = ThreadLocal.withInitial(hashFunction);
+        this.cache = cache;
+        this.treePool = treePool;
+        this.metrics = metrics;
+    }
+
+    public WalkMetrics getMetrics() {
+        return metrics;
+    }
+
+    private long read(Path file) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (treePool == null) {
+                return FileHashEngine.hash(file, hashFunction.get(), metrics);
+            }
+            return TreeHashEngine.hash(file, hashFunction, treePool, metrics);
+        } catch (IOException e) {
+            metrics.failed();
+            throw e;
+        } finally {
+            metrics.file(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Hash file.
+     *
+     * @param file file to hash
+     * @return hash of content or 0 if file can't be read
+     */
+    public long hash(Path file) {
+        try {
+            return read(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Cached hash of not changed file.
+     *
+     * @param file  file to find
+     * @param attrs current attributes of file
+     * @return cached entry or {@code null} if there is no cache or file has to be hashed
+     */
+    public HashCache.Entry findCached(Path file, BasicFileAttributes attrs) {
+        if (cache == null) {
+            return null;
+        }
+        HashCache.Entry entry = cache.find(file.toString(), attrs);
+        if (entry != null) {
+            metrics.cached();
+        }
+        return entry;
+    }
+
+    /**
+     * Hash file and remember hash in cache.
+     *
+     * @param file  file to hash
+     * @param attrs attributes of file read before hashing
+     * @return hash of content or 0 if file can't be read
+     */
+    public long hash(Path file, BasicFileAttributes attrs) {
+        if (cache == null) {
+            return hash(file);
+        }
+        try {
+            long hash = read(file);
+            cache.put(file.toString(), attrs, hash);
+            return hash;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * {@link HashFunction} implementations available from command line.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public enum HashAlgorithm implements Supplier<HashFunction> {
+    PJW("pjw", PjwHash::new),
+    XXHASH64("xxhash64", XxHash64::new),
+    SHA256("sha256", Sha256Hash::new);
+
+    private final String name;
+    private final Supplier<HashFunction> factory;
+
+    HashAlgorithm(String name, Supplier<HashFunction> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    @Override
+    public HashFunction get() {
+        return factory.get();
+    }
+
+    static HashAlgorithm byName(String name) throws WalkException {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.name.equals(name)) {
+                return algorithm;
+            }
+        }
+        throw new WalkException("unknown hash " + name + ", expected one of " + names());
+    }
+
+    static String names() {
+        return Arrays.stream(values()).map(a -> a.name).collect(Collectors.joining("|"));
+    }
+}
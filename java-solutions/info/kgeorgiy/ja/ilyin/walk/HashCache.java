@@ -0,0 +1,206 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent index of file hashes for incremental walks.
+ * Hash of file is reused while its size, modification time and file key
+ * (device and inode on Unix) are the same as at the moment it was hashed.
+ * <p>
+ * File format: magic, algorithm name, number of entries and entries of
+ * (path length, UTF-8 path, size, modification time in nanoseconds, length and UTF-8 text of file key, hash).
+ * Only entries found or hashed during current walk are saved.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class HashCache {
+    private static final int MAGIC = 0x574b4332;
+    // path length, size, modification time, file key length and hash of entry with empty path and file key
+    private static final int MIN_ENTRY = Integer.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    private final String algorithm;
+    private final Map<String, Entry> entries;
+
+    private HashCache(String algorithm, Map<String, Entry> entries) {
+        this.algorithm = algorithm;
+        this.entries = entries;
+    }
+
+    /**
+     * Create empty cache.
+     *
+     * @param algorithm name of hash algorithm, cache of other algorithm is never reused
+     */
+    public HashCache(String algorithm) {
+        this(algorithm, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Load cache saved by {@link #save(Path)}.
+     * Missing, corrupted or built with other algorithm index gives empty cache.
+     *
+     * @param file      index file
+     * @param algorithm name of hash algorithm
+     * @return loaded cache
+     * @throws IOException if index exists but can't be read
+     */
+    public static HashCache load(Path file, String algorithm) throws IOException {
+        ByteBuffer data;
+        try {
+            data = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return new HashCache(algorithm);
+        }
+        try {
+            if (data.getInt() != MAGIC || !algorithm.equals(readString(data))) {
+                return new HashCache(algorithm);
+            }
+            int size = data.getInt();
+            if (size < 0 || size > data.remaining() / MIN_ENTRY) {
+                return new HashCache(algorithm);
+            }
+            Map<String, Entry> entries = new ConcurrentHashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                String path = readString(data);
+                long fileSize = data.getLong();
+                long modified = data.getLong();
+                entries.put(path, new Entry(fileSize, modified, readString(data), data.getLong()));
+            }
+            return new HashCache(algorithm, entries);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                 | CharacterCodingException e) {
+            return new HashCache(algorithm);
+        }
+    }
+
+    private static String readString(ByteBuffer data) throws CharacterCodingException {
+        int length = data.getInt();
+        if (length < 0 || length > data.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        ByteBuffer bytes = data.slice();
+        bytes.limit(length);
+        data.position(data.position() + length);
+        return StandardCharsets.UTF_8.newDecoder().decode(bytes).toString();
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long modified(BasicFileAttributes attrs) {
+        return attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    // device and inode on Unix, empty if file system has no file keys
+    private static String fileKey(BasicFileAttributes attrs) {
+        return Objects.toString(attrs.fileKey(), "");
+    }
+
+    /**
+     * Find hash of not changed file and keep it for next save.
+     *
+     * @param path  file path
+     * @param attrs current attributes of file
+     * @return cached entry or {@code null} if file is new or changed
+     */
+    public Entry find(String path, BasicFileAttributes attrs) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.size != attrs.size() || entry.modified != modified(attrs)
+                || !entry.fileKey.equals(fileKey(attrs))) {
+            return null;
+        }
+        entry.used = true;
+        return entry;
+    }
+
+    /**
+     * Remember hash of file.
+     *
+     * @param path  file path
+     * @param attrs attributes of file read before hashing
+     * @param hash  hash of file
+     */
+    public void put(String path, BasicFileAttributes attrs, long hash) {
+        Entry entry = new Entry(attrs.size(), modified(attrs), fileKey(attrs), hash);
+        entry.used = true;
+        entries.put(path, entry);
+    }
+
+    /**
+     * Atomically replace index file with entries used during this walk.
+     *
+     * @param file index file
+     * @throws IOException if writing failed
+     */
+    public void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        // unlike createTempFile, new file gets default permissions of index
+        String suffix = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        Path tmp = parent.resolve(file.getFileName() + "." + suffix + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), 1 << 16))) {
+                out.writeInt(MAGIC);
+                writeString(out, algorithm);
+                int size = (int) entries.values().stream().filter(entry -> entry.used).count();
+                out.writeInt(size);
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    if (entry.used) {
+                        writeString(out, e.getKey());
+                        out.writeLong(entry.size);
+                        out.writeLong(entry.modified);
+                        writeString(out, entry.fileKey);
+                        out.writeLong(entry.hash);
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Cached hash of file.
+     */
+    public static class Entry {
+        private final long size;
+        private final long modified;
+        private final String fileKey;
+        private final long hash;
+        private boolean used;
+
+        private Entry(long size, long modified, String fileKey, long hash) {
+            this.size = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+            this.hash = hash;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+    }
+}
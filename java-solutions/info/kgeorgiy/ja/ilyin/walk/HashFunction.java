@@ -0,0 +1,31 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming 64-bit hash of file content.
+ * Instances are reused for many files and are not required to be thread-safe.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public interface HashFunction {
+    /**
+     * Start hashing of new content.
+     */
+    void reset();
+
+    /**
+     * Consume all remaining bytes of buffer.
+     *
+     * @param data next part of content
+     */
+    void update(ByteBuffer data);
+
+    /**
+     * Hash of all bytes consumed after last {@link #reset()}.
+     *
+     * @return hash value
+     */
+    long digest();
+}
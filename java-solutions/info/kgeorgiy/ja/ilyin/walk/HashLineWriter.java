@@ -0,0 +1,116 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes {@code "%016x %s%n"} lines in UTF-8 without formatting and intermediate strings.
+ * Hash is rendered directly into output buffer, which is flushed to channel when full.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class HashLineWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final int HASH_LENGTH = 17;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    /**
+     * Create writer, channel is closed with writer.
+     *
+     * @param channel channel to write
+     */
+    public HashLineWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Write line of hash and path.
+     *
+     * @param hash hash of file
+     * @param path path of file
+     * @throws IOException if writing to channel failed or path is not valid UTF-16
+     */
+    public void write(long hash, String path) throws IOException {
+        if (buffer.remaining() < HASH_LENGTH) {
+            flush();
+        }
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            buffer.put(HEX[(int) (hash >>> shift) & 0xf]);
+        }
+        buffer.put((byte) ' ');
+        writePath(path);
+        newLine();
+    }
+
+    /**
+     * Write line separator.
+     *
+     * @throws IOException if writing to channel failed
+     */
+    public void newLine() throws IOException {
+        if (buffer.remaining() < LINE_SEPARATOR.length) {
+            flush();
+        }
+        buffer.put(LINE_SEPARATOR);
+    }
+
+    private void writePath(String path) throws IOException {
+        int length = path.length();
+        int i = 0;
+        for (char c; i < length && (c = path.charAt(i)) < 0x80; i++) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) c);
+        }
+        if (i == length) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(path, i, length);
+        encoder.reset();
+        CoderResult result;
+        while ((result = encoder.encode(chars, buffer, true)).isOverflow()) {
+            flush();
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            flush();
+        }
+    }
+
+    /**
+     * Write buffered lines to channel.
+     *
+     * @throws IOException if writing failed
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.*;
+
+/**
+ * {@link WalkVisitor} hashing files on a pool of workers.
+ * Traversal stays on the calling thread, results are written by a separate writer thread
+ * in the order of traversal through a bounded reorder buffer.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class ParallelWalkVisitor extends WalkVisitor implements Closeable {
+    private static final int BUFFER_PER_THREAD = 64;
+    private static final Entry END = new Entry(null, null);
+
+    private final FileHasher hasher;
+    private final ExecutorService workers;
+    private final BlockingQueue<Entry> pending;
+    private final Thread writer;
+    private IOException writeException;
+
+    /**
+     * Create visitor and start workers.
+     *
+     * @param output    output to write hashes
+     * @param recursive visit directories recursively
+     * @param hasher    hasher of visited files
+     * @param threads   number of hashing workers
+     */
+    public ParallelWalkVisitor(HashLineWriter output, boolean recursive, FileHasher hasher, int threads) {
+        super(output, recursive, hasher);
+        this.hasher = hasher;
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.pending = new ArrayBlockingQueue<>(threads * BUFFER_PER_THREAD);
+        this.writer = new Thread(this::drain);
+        writer.start();
+    }
+
+    private void drain() {
+        try {
+            Entry entry;
+            while ((entry = pending.take()) != END) {
+                long hash = getHash(entry.hash);
+                if (writeException == null) {
+                    try {
+                        super.write(hash, entry.path);
+                    } catch (IOException e) {
+                        // keep draining, otherwise traversal blocks on full buffer
+                        writeException = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            writeException = new InterruptedIOException("writer was interrupted");
+        }
+    }
+
+    private static long getHash(Future<Long> hash) throws InterruptedException {
+        try {
+            return hash.get();
+        } catch (ExecutionException e) {
+            return 0;
+        }
+    }
+
+    private void put(Future<Long> hash, String path) throws IOException {
+        try {
+            pending.put(new Entry(hash, path));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for writer");
+        }
+    }
+
+    @Override
+    public void write(long hash, String filePath) throws IOException {
+        put(CompletableFuture.completedFuture(hash), filePath);
+    }
+
+    @Override
+    protected void writeHash(Path file, BasicFileAttributes attrs) throws IOException {
+        HashCache.Entry cached = hasher.findCached(file, attrs);
+        if (cached != null) {
+            write(cached.getHash(), file.toString());
+        } else {
+            put(workers.submit(() -> hasher.hash(file, attrs)), file.toString());
+        }
+    }
+
+    /**
+     * Wait for all submitted files to be written and stop workers.
+     *
+     * @throws IOException if writing of some hash failed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            pending.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for writer");
+        } finally {
+            workers.shutdownNow();
+        }
+        if (writeException != null) {
+            throw writeException;
+        }
+    }
+
+    private static class Entry {
+        private final Future<Long> hash;
+        private final String path;
+
+        private Entry(Future<Long> hash, String path) {
+            this.hash = hash;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 64-bit PJW hash.
+ *
+ * @author Yaroslav Ilin
+ */
+
+final class PjwHash implements HashFunction {
+    private long hash;
+
+    @Override
+    public void reset() {
+        hash = 0;
+    }
+
+    @Override
+    public void update(ByteBuffer data) {
+        long hash = this.hash;
+        long high;
+        for (int i = data.position(), limit = data.limit(); i < limit; i++) {
+            hash = (hash << 8) + (data.get(i) & 0xff);
+            if ((high = hash & 0xff00000000000000L) != 0) {
+                hash ^= high >> 48;
+                hash &= ~high;
+            }
+        }
+        data.position(data.limit());
+        this.hash = hash;
+    }
+
+    @Override
+    public long digest() {
+        return hash;
+    }
+}
@@ -0,0 +1,310 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replacement of {@link Files#walkFileTree(Path, FileVisitor)} for file systems with high latency of requests.
+ * Attributes of directory entries are read and subdirectories are listed on a pool of {@code prefetch} threads
+ * ahead of traversal, at most {@code prefetch} listed directories wait to be visited.
+ * Events are delivered to visitor on calling thread in the same order as by {@code walkFileTree}.
+ * Symbolic links are not followed.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class PrefetchingWalker implements Closeable {
+    private final FileTreeAccess access;
+    private final ExecutorService workers;
+    private final int prefetch;
+
+    /**
+     * Access to file system used by walker.
+     */
+    public interface FileTreeAccess {
+        /**
+         * Access through {@link Files}.
+         */
+        FileTreeAccess FILES = new FileTreeAccess() {
+            @Override
+            public DirectoryStream<Path> list(Path directory) throws IOException {
+                return Files.newDirectoryStream(directory);
+            }
+
+            @Override
+            public BasicFileAttributes attributes(Path file) throws IOException {
+                return Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            }
+        };
+
+        /**
+         * Open directory for listing.
+         *
+         * @param directory directory to list
+         * @return stream of entries
+         * @throws IOException if directory can't be opened
+         */
+        DirectoryStream<Path> list(Path directory) throws IOException;
+
+        /**
+         * Read attributes of file without following links.
+         *
+         * @param file file
+         * @return attributes
+         * @throws IOException if attributes can't be read
+         */
+        BasicFileAttributes attributes(Path file) throws IOException;
+    }
+
+    /**
+     * Create walker.
+     *
+     * @param access   access to file system
+     * @param prefetch number of requests in flight and of directories listed ahead of traversal
+     */
+    public PrefetchingWalker(FileTreeAccess access, int prefetch) {
+        this.access = access;
+        this.prefetch = prefetch;
+        this.workers = Executors.newFixedThreadPool(prefetch, task -> {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Walk file tree, like {@link Files#walkFileTree(Path, FileVisitor)}.
+     *
+     * @param start   start file
+     * @param visitor visitor
+     * @throws IOException if visitor throws it
+     */
+    public void walk(Path start, FileVisitor<? super Path> visitor) throws IOException {
+        CompletableFuture<BasicFileAttributes> attrs = new CompletableFuture<>();
+        try {
+            attrs.complete(access.attributes(start));
+        } catch (IOException e) {
+            attrs.completeExceptionally(e);
+        }
+        // counter is per walk, requests left after termination don't affect next walk
+        visit(new Node(start, attrs, new AtomicInteger()), visitor);
+    }
+
+    private FileVisitResult visit(Node node, FileVisitor<? super Path> visitor) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = get(node.attrs, node.path);
+        } catch (IOException e) {
+            return visitor.visitFileFailed(node.path, e);
+        }
+        if (!attrs.isDirectory()) {
+            return visitor.visitFile(node.path, attrs);
+        }
+        // like walkFileTree, directory which can't be opened is reported before preVisitDirectory
+        DirectoryStream<Path> stream;
+        try {
+            stream = node.open();
+        } catch (IOException e) {
+            return visitor.visitFileFailed(node.path, e);
+        }
+        FileVisitResult result;
+        Listing listing = null;
+        try {
+            result = visitor.preVisitDirectory(node.path, attrs);
+            if (result == FileVisitResult.CONTINUE) {
+                listing = node.getListing(stream);
+            }
+        } finally {
+            if (listing == null) {
+                node.skip(stream);
+            }
+        }
+        if (result != FileVisitResult.CONTINUE) {
+            return result == FileVisitResult.SKIP_SUBTREE ? FileVisitResult.CONTINUE : result;
+        }
+        for (Node child : listing.entries) {
+            child.attrs.thenAccept(childAttrs -> {
+                if (childAttrs.isDirectory()) {
+                    child.prefetch();
+                }
+            });
+        }
+        for (Node child : listing.entries) {
+            result = visit(child, visitor);
+            if (result == FileVisitResult.TERMINATE) {
+                return result;
+            }
+            if (result == FileVisitResult.SKIP_SIBLINGS) {
+                break;
+            }
+        }
+        // as in walkFileTree, skipping after postVisitDirectory is a no-op
+        result = visitor.postVisitDirectory(node.path, listing.iterationError);
+        return result == FileVisitResult.TERMINATE ? result : FileVisitResult.CONTINUE;
+    }
+
+    private Listing read(Node directory, DirectoryStream<Path> stream) {
+        Listing listing = new Listing();
+        try (stream) {
+            for (Path entry : stream) {
+                if (directory.skipped) {
+                    break;
+                }
+                listing.entries.add(new Node(entry, CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return access.attributes(entry);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, workers), directory.pending));
+            }
+        } catch (DirectoryIteratorException e) {
+            listing.iterationError = e.getCause();
+        } catch (IOException e) {
+            listing.iterationError = e;
+        }
+        return listing;
+    }
+
+    private static <T> T get(CompletableFuture<T> future, Path path) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while reading " + path);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("failed to read " + path, cause);
+        }
+    }
+
+    /**
+     * Stop worker threads.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    private static class Listing {
+        private final List<Node> entries = new ArrayList<>();
+        private IOException iterationError;
+    }
+
+    private class Node {
+        private final Path path;
+        private final CompletableFuture<BasicFileAttributes> attrs;
+        private final AtomicInteger pending;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<Void> opened = new CompletableFuture<>();
+        private final CompletableFuture<Listing> listing = new CompletableFuture<>();
+        private volatile boolean prefetched;
+        private volatile boolean skipped;
+
+        private Node(Path path, CompletableFuture<BasicFileAttributes> attrs, AtomicInteger pending) {
+            this.path = path;
+            this.attrs = attrs;
+            this.pending = pending;
+        }
+
+        private void prefetch() {
+            if (pending.getAndUpdate(count -> count < prefetch ? count + 1 : count) < prefetch) {
+                if (started.compareAndSet(false, true)) {
+                    prefetched = true;
+                    try {
+                        workers.execute(this::list);
+                    } catch (RejectedExecutionException e) {
+                        opened.completeExceptionally(e);
+                        listing.completeExceptionally(e);
+                    }
+                } else {
+                    pending.decrementAndGet();
+                }
+            }
+        }
+
+        // any failure completes both futures, otherwise traversal would wait for them forever
+        private void list() {
+            try {
+                DirectoryStream<Path> stream;
+                try {
+                    stream = access.list(path);
+                } catch (IOException e) {
+                    opened.completeExceptionally(new UncheckedIOException(e));
+                    return;
+                }
+                opened.complete(null);
+                listing.complete(read(this, stream));
+            } catch (Throwable e) {
+                opened.completeExceptionally(e);
+                listing.completeExceptionally(e);
+            }
+        }
+
+        // stream of directory opened on traversal thread, or null if directory is listed by worker
+        private DirectoryStream<Path> open() throws IOException {
+            if (started.compareAndSet(false, true)) {
+                return access.list(path);
+            }
+            try {
+                get(opened, path);
+            } catch (IOException e) {
+                release();
+                throw e;
+            }
+            return null;
+        }
+
+        private Listing getListing(DirectoryStream<Path> stream) throws IOException {
+            if (stream != null) {
+                return read(this, stream);
+            }
+            try {
+                return get(listing, path);
+            } finally {
+                release();
+            }
+        }
+
+        private void skip(DirectoryStream<Path> stream) {
+            skipped = true;
+            release();
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        // called on traversal thread only, frees place of prefetched directory once
+        private void release() {
+            if (prefetched) {
+                prefetched = false;
+                pending.decrementAndGet();
+            }
+        }
+    }
+}
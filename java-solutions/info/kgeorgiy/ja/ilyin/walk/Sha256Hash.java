@@ -0,0 +1,45 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 truncated to first 8 bytes of digest, to fit the output format.
+ *
+ * @author Yaroslav Ilin
+ */
+
+final class Sha256Hash implements HashFunction {
+    private final MessageDigest digest;
+    private final byte[] result = new byte[32];
+
+    Sha256Hash() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported", e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        digest.reset();
+    }
+
+    @Override
+    public void update(ByteBuffer data) {
+        digest.update(data);
+    }
+
+    @Override
+    public long digest() {
+        try {
+            digest.digest(result, 0, result.length);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        return ByteBuffer.wrap(result).getLong();
+    }
+}
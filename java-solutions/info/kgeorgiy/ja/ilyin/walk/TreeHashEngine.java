@@ -0,0 +1,110 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tree hash of file: hash function is applied to every {@link #CHUNK_SIZE} chunk of file in parallel,
+ * and then to concatenation of big-endian chunk digests.
+ * Digests <b>differ</b> from hashing of whole content, even for files of single chunk.
+ * Each task maps a window of up to {@link #WINDOW_SIZE} consecutive chunks at once, so large files
+ * don't exhaust the limit of mappings per process.
+ *
+ * @author Yaroslav Ilin
+ */
+
+final class TreeHashEngine {
+    static final int CHUNK_SIZE = 1 << 20;
+    static final int WINDOW_SIZE = 64 << 20;
+
+    private TreeHashEngine() {
+    }
+
+    static long hash(Path file, ThreadLocal<HashFunction> function, ForkJoinPool pool, WalkMetrics metrics) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] digests = new long[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+            // smaller windows for files of few windows, so that every thread gets several tasks
+            int window = (int) Math.max(1, Math.min(WINDOW_SIZE / CHUNK_SIZE,
+                    digests.length / (4L * pool.getParallelism())));
+            ChunkTask task = new ChunkTask(channel, size, function, metrics, digests, window, 0, digests.length);
+            try {
+                if (digests.length > 1) {
+                    pool.invoke(task);
+                } else {
+                    task.compute();
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            ByteBuffer combined = ByteBuffer.allocate(digests.length * Long.BYTES);
+            combined.asLongBuffer().put(digests);
+            HashFunction combine = function.get();
+            combine.reset();
+            combine.update(combined);
+            return combine.digest();
+        }
+    }
+
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long size;
+        private final ThreadLocal<HashFunction> function;
+        private final WalkMetrics metrics;
+        private final long[] digests;
+        private final int window;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(FileChannel channel, long size, ThreadLocal<HashFunction> function, WalkMetrics metrics,
+                          long[] digests, int window, int from, int to) {
+            this.channel = channel;
+            this.size = size;
+            this.function = function;
+            this.metrics = metrics;
+            this.digests = digests;
+            this.window = window;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > window) {
+                int middle = from + (to - from + window - 1) / window / 2 * window;
+                invokeAll(new ChunkTask(channel, size, function, metrics, digests, window, from, middle),
+                        new ChunkTask(channel, size, function, metrics, digests, window, middle, to));
+            } else if (from < to) {
+                hashWindow();
+            }
+        }
+
+        private void hashWindow() {
+            long start = (long) from * CHUNK_SIZE;
+            try {
+                long time = System.nanoTime();
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min((long) (to - from) * CHUNK_SIZE, size - start));
+                HashFunction hash = function.get();
+                for (int index = from; index < to; index++) {
+                    int offset = (index - from) * CHUNK_SIZE;
+                    ByteBuffer chunk = mapped.duplicate();
+                    chunk.position(offset).limit(Math.min(offset + CHUNK_SIZE, mapped.capacity()));
+                    hash.reset();
+                    time = FileHashEngine.update(hash, chunk, metrics, time);
+                    digests[index] = hash.digest();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of walk progress, updated concurrently by hashing threads.
+ * Time of page faults on mapped files is accounted as hashing time.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public class WalkMetrics implements WalkMetricsMXBean {
+    private static final String NAME = "info.kgeorgiy.ja.ilyin.walk:type=WalkMetrics";
+
+    private final long start = System.nanoTime();
+    private final LongAdder visited = new LongAdder();
+    private final LongAdder cached = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder ioNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final AtomicLongArray latency = new AtomicLongArray(Long.SIZE);
+
+    void visited() {
+        visited.increment();
+    }
+
+    void cached() {
+        cached.increment();
+    }
+
+    void failed() {
+        failures.increment();
+    }
+
+    void io(long nanos) {
+        ioNanos.add(nanos);
+    }
+
+    void hashed(long size, long nanos) {
+        bytes.add(size);
+        hashNanos.add(nanos);
+    }
+
+    void file(long nanos) {
+        latency.incrementAndGet(Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(nanos, 1)));
+    }
+
+    @Override
+    public long getFilesVisited() {
+        return visited.sum();
+    }
+
+    @Override
+    public long getFilesCached() {
+        return cached.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getBytesHashed() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getIoMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ioNanos.sum());
+    }
+
+    @Override
+    public long getHashMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(hashNanos.sum());
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] result = new long[latency.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = latency.get(i);
+        }
+        return result;
+    }
+
+    private static long percentile(long[] histogram, double fraction) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * fraction);
+        for (int i = 0; i < histogram.length; i++) {
+            rank -= histogram[i];
+            if (rank <= 0) {
+                return 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    private static String duration(long nanos) {
+        if (nanos < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        }
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+    }
+
+    @Override
+    public String getReport() {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long[] histogram = getLatencyHistogram();
+        return String.format(Locale.ROOT,
+                "files: %d (%.0f/s), cached: %d, failures: %d, hashed: %.1f MiB (%.1f MiB/s), "
+                        + "io: %.1fs, hash: %.1fs, latency p50 < %s, p99 < %s, max < %s",
+                getFilesVisited(), getFilesVisited() / seconds, getFilesCached(), getFailures(),
+                getBytesHashed() / 1048576.0, getBytesHashed() / 1048576.0 / seconds,
+                getIoMillis() / 1e3, getHashMillis() / 1e3,
+                duration(2 * percentile(histogram, 0.5)), duration(2 * percentile(histogram, 0.99)),
+                duration(2 * percentile(histogram, 1)));
+    }
+
+    /**
+     * Register metrics in platform MBean server, replacing previously registered ones.
+     *
+     * @throws JMException if registration failed
+     */
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+    }
+
+    /**
+     * Remove metrics from platform MBean server if they are registered.
+     *
+     * @throws JMException if removal failed
+     */
+    public void unregister() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+}
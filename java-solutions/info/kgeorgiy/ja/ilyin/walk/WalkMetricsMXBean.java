@@ -0,0 +1,52 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+/**
+ * Management interface of {@link WalkMetrics}.
+ *
+ * @author Yaroslav Ilin
+ */
+
+public interface WalkMetricsMXBean {
+    /**
+     * @return number of visited files, including failed ones
+     */
+    long getFilesVisited();
+
+    /**
+     * @return number of files which hash was taken from cache
+     */
+    long getFilesCached();
+
+    /**
+     * @return number of files which can't be visited or read
+     */
+    long getFailures();
+
+    /**
+     * @return number of hashed bytes
+     */
+    long getBytesHashed();
+
+    /**
+     * @return total time of reading and mapping files by all threads, in milliseconds
+     */
+    long getIoMillis();
+
+    /**
+     * @return total time of hash computation by all threads, in milliseconds
+     */
+    long getHashMillis();
+
+    /**
+     * Histogram of hashing time per file, element {@code i} is number of files
+     * hashed in {@code [2^i, 2^(i + 1))} nanoseconds.
+     *
+     * @return histogram
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * @return human readable summary of metrics
+     */
+    String getReport();
+}
@@ -0,0 +1,127 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.nio.file.Path;
+
+/**
+ * Optional arguments of {@link Walk} and {@link RecursiveWalk}, following input and output file.
+ *
+ * @author Yaroslav Ilin
+ */
+
+class WalkOptions {
+    static final String USAGE = "expected: input output [-threads N] [-hash " + HashAlgorithm.names() + "] [-cache index] [-tree]"
+            + " [-progress seconds] [-jmx] [-dedup] [-prefetch N]"
+            + " (-tree hashes 1 MiB chunks in parallel, digests differ from default mode;"
+            + " -prefetch lists up to N directories ahead of traversal)";
+
+    private int threads = 1;
+    private HashAlgorithm hash = HashAlgorithm.PJW;
+    private Path cache;
+    private boolean tree;
+    private int progress;
+    private boolean jmx;
+    private boolean dedup;
+    private int prefetch;
+
+    private WalkOptions() {
+    }
+
+    static WalkOptions parse(String[] args, int from) throws WalkException {
+        WalkOptions options = new WalkOptions();
+        for (int i = from; i < args.length; i++) {
+            if (args[i] == null) {
+                throw new WalkException(USAGE);
+            }
+            switch (args[i]) {
+                case "-threads":
+                    options.threads = parsePositive(args, ++i);
+                    break;
+                case "-hash":
+                    options.hash = HashAlgorithm.byName(value(args, ++i));
+                    break;
+                case "-progress":
+                    options.progress = parsePositive(args, ++i);
+                    break;
+                case "-prefetch":
+                    options.prefetch = parsePositive(args, ++i);
+                    break;
+                case "-dedup":
+                    options.dedup = true;
+                    break;
+                case "-jmx":
+                    options.jmx = true;
+                    break;
+                case "-tree":
+                    options.tree = true;
+                    break;
+                case "-cache":
+                    options.cache = BaseWalk.toPath(value(args, ++i));
+                    break;
+                default:
+                    throw new WalkException("unknown option " + args[i] + ", " + USAGE);
+            }
+        }
+        return options;
+    }
+
+    private static String value(String[] args, int ind) throws WalkException {
+        if (ind >= args.length || args[ind] == null) {
+            throw new WalkException("missing value of option " + args[ind - 1] + ", " + USAGE);
+        }
+        return args[ind];
+    }
+
+    private static int parsePositive(String[] args, int ind) throws WalkException {
+        String value = value(args, ind);
+        try {
+            int result = Integer.parseInt(value);
+            if (result <= 0) {
+                throw new WalkException("expected positive value of " + args[ind - 1] + ", found " + value);
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new WalkException("expected number as value of " + args[ind - 1] + ", found " + value, e);
+        }
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    HashAlgorithm getHash() {
+        return hash;
+    }
+
+    Path getCache() {
+        return cache;
+    }
+
+    boolean isTree() {
+        return tree;
+    }
+
+    int getProgress() {
+        return progress;
+    }
+
+    boolean isJmx() {
+        return jmx;
+    }
+
+    boolean isDedup() {
+        return dedup;
+    }
+
+    int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Name of digest produced with these options, hashes of different digests are never mixed.
+     *
+     * @return name of algorithm and mode
+     */
+    String getDigestName() {
+        return tree ? hash.name() + "/tree" : hash.name();
+    }
+}
@@ -1,10 +1,7 @@
 package info.kgeorgiy.ja.ilyin.walk;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
@@ -14,49 +11,64 @@ import java.nio.file.attribute.BasicFileAttributes;
  */
 
 public class WalkVisitor extends SimpleFileVisitor<Path> {
-    private final BufferedWriter output;
+    private static final FileHasher PJW = new FileHasher(HashAlgorithm.PJW);
+
+    private final HashLineWriter output;
     private final boolean recursive;
+    private final FileHasher hasher;
+
+    public WalkVisitor(HashLineWriter output, boolean recursive) {
+        this(output, recursive, PJW);
+    }
 
-    public WalkVisitor(BufferedWriter output, boolean recursive) {
+    /**
+     * Create visitor.
+     *
+     * @param output    output to write hashes
+     * @param recursive visit directories recursively
+     * @param hasher    hasher of visited files
+     */
+    public WalkVisitor(HashLineWriter output, boolean recursive, FileHasher hasher) {
         this.output = output;
         this.recursive = recursive;
+        this.hasher = hasher;
     }
 
     public void write(long hash, String filePath) throws IOException {
-        output.write(String.format("%016x %s%n", hash, filePath));
+        output.write(hash, filePath);
+    }
+
+    /**
+     * Write zero hash of file which can't be visited.
+     *
+     * @param filePath path of file
+     * @throws IOException if writing failed
+     */
+    public void writeFailed(String filePath) throws IOException {
+        hasher.getMetrics().visited();
+        hasher.getMetrics().failed();
+        write(0, filePath);
     }
 
     public static long pjwHash(Path filePath) {
-        long high;
-        long hash = 0;
-        byte[] bytes = new byte[4096];
-        try (BufferedInputStream reader = new BufferedInputStream(Files.newInputStream(filePath))) {
-            int c;
-            while ((c = reader.read(bytes)) >= 0) {
-                for (int i = 0; i < c; i++) {
-                    hash = (hash << 8) + (bytes[i] & 0xff);
-                    if ((high = hash & 0xff00000000000000L) != 0) {
-                        hash ^= high >> 48;
-                        hash &= ~high;
-                    }
-                }
-            }
-        } catch (IOException e) {
-            hash = 0;
-        }
-        return hash;
+        return PJW.hash(filePath);
+    }
+
+    protected void writeHash(Path file, BasicFileAttributes attrs) throws IOException {
+        HashCache.Entry cached = hasher.findCached(file, attrs);
+        write(cached != null ? cached.getHash() : hasher.hash(file, attrs), file.toString());
     }
 
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-        long hash = pjwHash(file);
-        write(hash, file.toString());
+        hasher.getMetrics().visited();
+        writeHash(file, attrs);
         return recursive ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
     }
 
     @Override
     public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-        write(0, file.toString());
+        writeFailed(file.toString());
         return FileVisitResult.CONTINUE;
     }
 
@@ -65,7 +77,7 @@ public class WalkVisitor extends SimpleFileVisitor<Path> {
         if (recursive) {
             return FileVisitResult.CONTINUE;
         } else {
-            write(0, dir.toString());
+            writeFailed(dir.toString());
             return FileVisitResult.SKIP_SUBTREE;
         }
     }
@@ -0,0 +1,124 @@
+package info.kgeorgiy.ja.ilyin.walk;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming xxHash64 with zero seed, consumes input by 8-byte words.
+ *
+ * @author Yaroslav Ilin
+ */
+
+final class XxHash64 implements HashFunction {
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+
+    private final ByteBuffer pending = ByteBuffer.allocate(STRIPE).order(ByteOrder.LITTLE_ENDIAN);
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long total;
+
+    XxHash64() {
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        v1 = P1 + P2;
+        v2 = P2;
+        v3 = 0;
+        v4 = -P1;
+        total = 0;
+        pending.clear();
+    }
+
+    private static long round(long acc, long input) {
+        return Long.rotateLeft(acc + input * P2, 31) * P1;
+    }
+
+    private static long merge(long acc, long value) {
+        return (acc ^ round(0, value)) * P1 + P4;
+    }
+
+    private void stripe(ByteBuffer data, int i) {
+        v1 = round(v1, data.getLong(i));
+        v2 = round(v2, data.getLong(i + 8));
+        v3 = round(v3, data.getLong(i + 16));
+        v4 = round(v4, data.getLong(i + 24));
+    }
+
+    @Override
+    public void update(ByteBuffer data) {
+        int limit = data.limit();
+        consume(data.duplicate().order(ByteOrder.LITTLE_ENDIAN), data.position(), limit);
+        data.position(limit);
+    }
+
+    // duplicate is read, so byte order of caller's buffer is not changed
+    private void consume(ByteBuffer data, int i, int limit) {
+        total += limit - i;
+        if (pending.position() > 0) {
+            while (pending.hasRemaining() && i < limit) {
+                pending.put(data.get(i++));
+            }
+            if (pending.hasRemaining()) {
+                return;
+            }
+            stripe(pending, 0);
+            pending.clear();
+        }
+        long v1 = this.v1, v2 = this.v2, v3 = this.v3, v4 = this.v4;
+        for (; i + STRIPE <= limit; i += STRIPE) {
+            v1 = round(v1, data.getLong(i));
+            v2 = round(v2, data.getLong(i + 8));
+            v3 = round(v3, data.getLong(i + 16));
+            v4 = round(v4, data.getLong(i + 24));
+        }
+        this.v1 = v1;
+        this.v2 = v2;
+        this.v3 = v3;
+        this.v4 = v4;
+        while (i < limit) {
+            pending.put(data.get(i++));
+        }
+    }
+
+    @Override
+    public long digest() {
+        long hash;
+        if (total >= STRIPE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = P5;
+        }
+        hash += total;
+        int i = 0;
+        int tail = pending.position();
+        for (; i + 8 <= tail; i += 8) {
+            hash = Long.rotateLeft(hash ^ round(0, pending.getLong(i)), 27) * P1 + P4;
+        }
+        if (i + 4 <= tail) {
+            hash = Long.rotateLeft(hash ^ (pending.getInt(i) & 0xffffffffL) * P1, 23) * P2 + P3;
+            i += 4;
+        }
+        for (; i < tail; i++) {
+            hash = Long.rotateLeft(hash ^ (pending.get(i) & 0xff) * P5, 11) * P1;
+        }
+        hash ^= hash >>> 33;
+        hash *= P2;
+        hash ^= hash >>> 29;
+        hash *= P3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+}
@@ -0,0 +1,10 @@
+#!/bin/bash
+# Usage: ./runArraySetBenchmark.sh [-warmup N] [-iterations N] [-time ms] [-filter regex] [-maxSize N]
+cd ..
+rm -r out/benchmarks/arrayset 2>/dev/null
+mkdir -p out/benchmarks/arrayset
+javac -encoding UTF-8 -d out/benchmarks/arrayset \
+ java-solutions/info/kgeorgiy/ja/ilyin/arrayset/*.java \
+ java-benchmarks/info/kgeorgiy/ja/ilyin/benchmark/*.java \
+ java-benchmarks/info/kgeorgiy/ja/ilyin/arrayset/*.java
+java -cp out/benchmarks/arrayset info.kgeorgiy.ja.ilyin.arrayset.ArraySetBenchmark "$@"
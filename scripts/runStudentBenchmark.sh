@@ -0,0 +1,14 @@
+#!/bin/bash
+# Usage: ./runStudentBenchmark.sh [-warmup N] [-iterations N] [-time ms] [-filter regex] [-students N] [-threads N]
+cd ..
+ARTIFACTS=../java-advanced-2021/artifacts
+CLASSPATH=$ARTIFACTS/info.kgeorgiy.java.advanced.student.jar:$ARTIFACTS/info.kgeorgiy.java.advanced.concurrent.jar:$ARTIFACTS/info.kgeorgiy.java.advanced.mapper.jar
+rm -r out/benchmarks/student 2>/dev/null
+mkdir -p out/benchmarks/student
+javac -encoding UTF-8 -cp $CLASSPATH -d out/benchmarks/student \
+ java-solutions/info/kgeorgiy/ja/ilyin/student/*.java \
+ java-solutions/info/kgeorgiy/ja/ilyin/concurrent/*.java \
+ java-benchmarks/info/kgeorgiy/ja/ilyin/benchmark/*.java \
+ java-benchmarks/info/kgeorgiy/ja/ilyin/student/*.java
+java -cp out/benchmarks/student:$CLASSPATH \
+ info.kgeorgiy.ja.ilyin.student.StudentDBBenchmark "$@"
@@ -0,0 +1,10 @@
+#!/bin/bash
+# Usage: ./runWalkBenchmark.sh [-warmup N] [-iterations N] [-time ms] [-filter regex] [-maxSize bytes] [-files N] [-threads N] [-latency micros]
+cd ..
+rm -r out/benchmarks/walk 2>/dev/null
+mkdir -p out/benchmarks/walk
+javac -d out/benchmarks/walk \
+ java-solutions/info/kgeorgiy/ja/ilyin/walk/*.java \
+ java-benchmarks/info/kgeorgiy/ja/ilyin/benchmark/*.java \
+ java-benchmarks/info/kgeorgiy/ja/ilyin/walk/*.java
+java -cp out/benchmarks/walk info.kgeorgiy.ja.ilyin.walk.WalkBenchmark "$@"